@@ -0,0 +1,18 @@
+package org.metersphere;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+
+/**
+ * 插件级别的 parent disposable，插件卸载或 IDE 关闭时释放连接池、线程池等资源
+ */
+public class MSPluginDisposable implements Disposable {
+
+    public static MSPluginDisposable getInstance() {
+        return ApplicationManager.getApplication().getService(MSPluginDisposable.class);
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
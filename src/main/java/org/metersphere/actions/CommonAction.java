@@ -2,20 +2,23 @@ package org.metersphere.actions;
 
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
 import org.metersphere.constants.PluginConstants;
 import org.metersphere.exporter.ExporterFactory;
+import org.metersphere.exporter.PendingImport;
 import org.metersphere.utils.ProgressUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class CommonAction extends AnAction {
     private Logger logger = LoggerFactory.getLogger(CommonAction.class);
@@ -25,26 +28,67 @@ public abstract class CommonAction extends AnAction {
         if (project == null) {
             return;
         }
-        AtomicBoolean r = new AtomicBoolean(true);
-        AtomicReference<Throwable> exception = new AtomicReference<>();
-        ProgressManager.getInstance().runProcessWithProgressSynchronously(() -> {
-            try {
-                ApplicationManager.getApplication().runReadAction((ThrowableComputable<Void, Throwable>) () -> {
+        PsiElement element = ExporterFactory.getElement(event);
+        if (element == null) {
+            Messages.showInfoMessage("no valid psi element found!", PluginConstants.MessageTitle.Info.name());
+            return;
+        }
+        if (PluginConstants.EXPORTER_MS.equals(source)) {
+            PendingImport pending = ExporterFactory.getPendingImport();
+            if (pending != null) {
+                int answer = Messages.showYesNoDialog(project,
+                        String.format("%d batch(es) failed in the last export. Re-send only the failed batches without re-scanning sources?", pending.getBatches().size()),
+                        PluginConstants.MessageTitle.Info.name(), Messages.getQuestionIcon());
+                if (answer == Messages.YES) {
+                    runWithProgress(project, () -> ExporterFactory.resume(pending));
+                    return;
+                }
+                PendingImport.clear();
+            }
+        }
+        //不在整个导出过程持有读锁，避免网络请求阻塞写操作
+        runWithProgress(project, () -> ExporterFactory.export(source, element));
+    }
+
+    /**
+     * 在后台任务中导出，不阻塞 IDE，结果在任务结束后提示
+     */
+    private void runWithProgress(Project project, ThrowableComputable<Boolean, Throwable> task) {
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Exporting api to MeterSphere please wait...", true) {
+            private Throwable exception;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
                     ProgressUtil.show(("begin exporting..."));
-                    ExporterFactory.export(source, event);
-                    return null;
-                });
-            } catch (Throwable throwable) {
-                logger.error("Export MeterSphere API failed !", throwable);
-                exception.set(throwable);
-                r.set(false);
+                    task.compute();
+                } catch (ProcessCanceledException e) {
+                    throw e;
+                } catch (Throwable throwable) {
+                    logger.error("Export MeterSphere API failed !", throwable);
+                    exception = throwable;
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                if (exception == null) {
+                    Messages.showInfoMessage("Export to MeterSphere success!", PluginConstants.MessageTitle.Info.name());
+                } else {
+                    showFail(exception);
+                }
             }
-        }, "Exporting api to MeterSphere please wait...", true, event.getProject());
 
-        if (r.get())
-            Messages.showInfoMessage("Export to MeterSphere success!", PluginConstants.MessageTitle.Info.name());
-        else
-            Messages.showInfoMessage("Export to MeterSphere fail! " + Optional.ofNullable(exception.get()).orElse(new Throwable("")).getMessage(), PluginConstants.MessageTitle.Error.name());
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                logger.error("Export MeterSphere API failed !", error);
+                showFail(error);
+            }
+        });
+    }
+
+    private void showFail(Throwable exception) {
+        Messages.showInfoMessage("Export to MeterSphere fail! " + Optional.ofNullable(exception).orElse(new Throwable("")).getMessage(), PluginConstants.MessageTitle.Error.name());
     }
 
     protected void exportDirectly(String source, AnActionEvent event) {
@@ -0,0 +1,16 @@
+package org.metersphere.actions;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import org.jetbrains.annotations.NotNull;
+import org.metersphere.utils.MSMetadataCache;
+
+/**
+ * 清空 MeterSphere 元数据缓存
+ */
+public class InvalidateCacheAction extends AnAction {
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        MSMetadataCache.invalidate();
+    }
+}
@@ -17,6 +17,7 @@ import java.util.Map;
 public class PluginConstants {
     public static final String EXPORTER_MS = "MeterSphere";
     public static final String EXPORTER_POSTMAN = "Postman";
+    public static final String NOTIFICATION_GROUP = "MeterSphere";
 
     //-------------------------------------------------------------------------------------------------------------------------------- Normal
     /**
@@ -0,0 +1,81 @@
+package org.metersphere.exporter;
+
+import org.metersphere.model.PostmanModel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * 把解析结果按 controller 数量或字节数切分成多个 collection，每写满一批就交给 onBatch
+ */
+public class BatchWriter {
+    private final String name;
+    private final String description;
+    private final int maxControllers;
+    private final long maxBytes;
+    private final Consumer<ImportBatch> onBatch;
+
+    private ByteArrayOutputStream buffer;
+    private CollectionWriter writer;
+    private int batchCount;
+
+    /**
+     * @param maxControllers 每批最多 controller 数
+     * @param maxBytes       每批最多字节数，超过后当前 controller 写完即结束这一批
+     */
+    public BatchWriter(String name, String description, int maxControllers, long maxBytes, Consumer<ImportBatch> onBatch) {
+        this.name = name;
+        this.description = description;
+        this.maxControllers = Math.max(1, maxControllers);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.onBatch = onBatch;
+    }
+
+    public void write(PostmanModel model) {
+        try {
+            if (writer == null) {
+                buffer = new ByteArrayOutputStream();
+                writer = new CollectionWriter(buffer);
+                writer.begin(name, description, null);
+            }
+            writer.write(model);
+            writer.flush();
+            if (writer.getCount() >= maxControllers || buffer.size() >= maxBytes) {
+                finishBatch();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 结束最后一批
+     */
+    public void finish() {
+        try {
+            if (writer != null) {
+                finishBatch();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return 已经切分出的批次数
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    private void finishBatch() throws IOException {
+        writer.end();
+        int controllers = writer.getCount();
+        writer.close();
+        writer = null;
+        onBatch.accept(new ImportBatch(++batchCount, controllers, buffer.toByteArray()));
+        buffer = null;
+    }
+}
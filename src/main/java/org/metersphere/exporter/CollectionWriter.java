@@ -0,0 +1,71 @@
+package org.metersphere.exporter;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.metersphere.model.PostmanModel;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 流式写出 postman collection，每个 controller 解析完就直接写入输出流，不在内存中拼装整个文档
+ */
+public class CollectionWriter implements Closeable {
+    public static final String SCHEMA = "https://schema.getpostman.com/json/collection/v2.1.0/collection.json";
+    private static final Gson gson = new Gson();
+
+    private final JsonWriter writer;
+    private int count;
+
+    public CollectionWriter(OutputStream outputStream) throws IOException {
+        this.writer = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 写出 info 并开始 item 数组
+     *
+     * @param name        collection 名称
+     * @param description 描述
+     * @param postmanId   可以为空
+     * @throws IOException
+     */
+    public void begin(String name, String description, String postmanId) throws IOException {
+        writer.beginObject();
+        writer.name("info").beginObject();
+        writer.name("schema").value(SCHEMA);
+        writer.name("name").value(name);
+        writer.name("description").value(description);
+        if (postmanId != null) {
+            writer.name("_postman_id").value(postmanId);
+        }
+        writer.endObject();
+        writer.name("item").beginArray();
+    }
+
+    public void write(PostmanModel model) {
+        gson.toJson(model, PostmanModel.class, writer);
+        count++;
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    public void end() throws IOException {
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * @return 已写出的 controller 数量
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
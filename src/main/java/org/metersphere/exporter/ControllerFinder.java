@@ -0,0 +1,86 @@
+package org.metersphere.exporter;
+
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.searches.AnnotatedElementsSearch;
+import org.metersphere.utils.ProgressUtil;
+
+import java.util.*;
+
+/**
+ * 通过 IDE 索引查找选中范围内的 controller，只加载真正的 controller 文件
+ */
+public class ControllerFinder {
+    public static final List<String> CONTROLLER_ANNOTATIONS = Arrays.asList(
+            "org.springframework.web.bind.annotation.RestController",
+            "org.springframework.stereotype.Controller"
+    );
+
+    /**
+     * 索引未就绪或者选中的不是目录时，退回到目录遍历
+     *
+     * @param element 选中的文件或目录
+     * @return 包含 controller 的 java 文件
+     */
+    public static List<PsiJavaFile> find(PsiElement element) {
+        Project project = element.getProject();
+        if (!(element instanceof PsiDirectory) || DumbService.isDumb(project)) {
+            return PostmanExporter.getFile(element, new LinkedList<>());
+        }
+        SearchScope scope = GlobalSearchScopesCore.directoryScope((PsiDirectory) element, true);
+        Map<String, PsiJavaFile> files = new TreeMap<>();
+        for (PsiClass annotation : findControllerAnnotations(project)) {
+            AnnotatedElementsSearch.searchPsiClasses(annotation, scope).forEach(psiClass -> {
+                if (psiClass.isAnnotationType()) {
+                    return true;
+                }
+                PsiFile file = psiClass.getContainingFile();
+                if (file instanceof PsiJavaFile) {
+                    VirtualFile virtualFile = file.getVirtualFile();
+                    String path = virtualFile != null ? virtualFile.getPath() : file.getName();
+                    if (files.putIfAbsent(path, (PsiJavaFile) file) == null) {
+                        ProgressUtil.show(("Found controller: " + file.getName()));
+                    }
+                }
+                return true;
+            });
+        }
+        return new LinkedList<>(files.values());
+    }
+
+    /**
+     * 找到 RestController/Controller 以及以它们为元注解的自定义注解
+     *
+     * @param project
+     * @return
+     */
+    private static Set<PsiClass> findControllerAnnotations(Project project) {
+        GlobalSearchScope allScope = GlobalSearchScope.allScope(project);
+        Set<PsiClass> annotations = new LinkedHashSet<>();
+        Deque<PsiClass> queue = new ArrayDeque<>();
+        for (String name : CONTROLLER_ANNOTATIONS) {
+            PsiClass annotation = JavaPsiFacade.getInstance(project).findClass(name, allScope);
+            if (annotation != null) {
+                queue.add(annotation);
+            }
+        }
+        while (!queue.isEmpty()) {
+            PsiClass annotation = queue.poll();
+            if (!annotations.add(annotation)) {
+                continue;
+            }
+            AnnotatedElementsSearch.searchPsiClasses(annotation, allScope).forEach(psiClass -> {
+                if (psiClass.isAnnotationType()) {
+                    queue.add(psiClass);
+                }
+                return true;
+            });
+        }
+        return annotations;
+    }
+}
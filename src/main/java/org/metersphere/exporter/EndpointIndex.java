@@ -0,0 +1,247 @@
+package org.metersphere.exporter;
+
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.metersphere.model.PostmanModel;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 接口级别的解析结果缓存和类型到接口的反向索引
+ * 某个类所在的文件发生变化时，只丢弃请求参数或返回值引用到该类的接口，以及该类自身声明的接口
+ * 其余接口在重新解析 controller 时直接复用，项目的依赖库或源码目录变化时整体丢弃
+ */
+public class EndpointIndex implements Disposable {
+    //key: controller 全限定名#方法签名
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    //key: 类的全限定名 value: 引用到该类的接口
+    private final Map<String, Set<String>> dependents = new ConcurrentHashMap<>();
+    //本次会话中已经读取过磁盘缓存的 controller key: 全限定名|导出配置
+    private final Set<String> diskLoaded = ConcurrentHashMap.newKeySet();
+
+    private final Project project;
+
+    public static class Endpoint {
+        private final String signature;
+        //不是接口的方法为 null
+        private final PostmanModel.ItemBean item;
+        //服务长期存在，不直接持有 PsiClass，避免重新解析后仍然引用旧的 PSI
+        private final Set<SmartPsiElementPointer<PsiClass>> referencedClasses;
+
+        private Endpoint(String signature, PostmanModel.ItemBean item, Set<SmartPsiElementPointer<PsiClass>> referencedClasses) {
+            this.signature = signature;
+            this.item = item;
+            this.referencedClasses = referencedClasses;
+        }
+
+        public PostmanModel.ItemBean getItem() {
+            return item;
+        }
+
+        /**
+         * @return 有类已经被删除时返回 null
+         */
+        public Set<PsiClass> getReferencedClasses() {
+            Set<PsiClass> classes = new HashSet<>();
+            for (SmartPsiElementPointer<PsiClass> pointer : referencedClasses) {
+                PsiClass psiClass = pointer.getElement();
+                if (psiClass == null) {
+                    return null;
+                }
+                classes.add(psiClass);
+            }
+            return classes;
+        }
+    }
+
+    public EndpointIndex(Project project) {
+        this.project = project;
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new ChangeListener(), this);
+        //依赖库、JDK、源码目录变化时引用到的类可能变成另一个版本，PSI 监听收不到，全部丢弃
+        project.getMessageBus().connect(this).subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootListener() {
+            @Override
+            public void rootsChanged(@NotNull ModuleRootEvent event) {
+                clear();
+            }
+        });
+    }
+
+    public static EndpointIndex getInstance(Project project) {
+        return project.getService(EndpointIndex.class);
+    }
+
+    public static String key(PsiClass controllerClass, PsiMethod method) {
+        return controllerClass.getQualifiedName() + "#" + method.getName() + method.getParameterList().getText();
+    }
+
+    /**
+     * @param key
+     * @param signature 导出配置
+     * @return 配置一致且引用的类都有效时返回缓存的接口
+     */
+    public Endpoint get(String key, String signature) {
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint == null || !endpoint.signature.equals(signature)) {
+            return null;
+        }
+        return endpoint.getReferencedClasses() != null ? endpoint : null;
+    }
+
+    /**
+     * 索引中没有该 controller 的接口时（IDE 重启后第一次导出）才需要读取磁盘缓存
+     * 每个 controller 在一次会话中只读取一次，之后再失效时直接解析，解析结果进入索引后按接口复用
+     *
+     * @param controllerClass
+     * @param signature       导出配置
+     * @return 是否读取磁盘缓存
+     */
+    public boolean claimDiskLoad(PsiClass controllerClass, String signature) {
+        String qualifiedName = controllerClass.getQualifiedName();
+        if (qualifiedName == null) {
+            return false;
+        }
+        String prefix = qualifiedName + "#";
+        for (String key : getDependents(qualifiedName)) {
+            Endpoint endpoint = endpoints.get(key);
+            if (key.startsWith(prefix) && endpoint != null && endpoint.signature.equals(signature)) {
+                return false;
+            }
+        }
+        return diskLoaded.add(qualifiedName + "|" + signature);
+    }
+
+    public Endpoint put(String key, String signature, PostmanModel.ItemBean item, Set<PsiClass> referencedClasses, PsiClass controllerClass) {
+        SmartPointerManager pointerManager = SmartPointerManager.getInstance(project);
+        Set<SmartPsiElementPointer<PsiClass>> pointers = new HashSet<>();
+        for (PsiClass psiClass : referencedClasses) {
+            pointers.add(pointerManager.createSmartPsiElementPointer(psiClass));
+        }
+        Endpoint endpoint = new Endpoint(signature, item, Collections.unmodifiableSet(pointers));
+        endpoints.put(key, endpoint);
+        addDependent(controllerClass.getQualifiedName(), key);
+        for (PsiClass psiClass : referencedClasses) {
+            addDependent(psiClass.getQualifiedName(), key);
+        }
+        return endpoint;
+    }
+
+    /**
+     * @param qualifiedName 类的全限定名
+     * @return 请求参数或返回值引用到该类的接口
+     */
+    public Set<String> getDependents(String qualifiedName) {
+        Set<String> keys = dependents.get(qualifiedName);
+        return keys == null ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    private void addDependent(String qualifiedName, String key) {
+        if (qualifiedName != null) {
+            dependents.computeIfAbsent(qualifiedName, k -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    /**
+     * 只沿父节点向上找到变化所在的类，不遍历整个文件，输入时也不会有明显开销
+     *
+     * @param element 发生变化的节点
+     */
+    private void invalidate(PsiElement element) {
+        PsiClass psiClass = PsiTreeUtil.getParentOfType(element, PsiClass.class, false);
+        if (psiClass == null) {
+            if (element instanceof PsiJavaFile) {
+                //import 等文件级别的变化会影响文件中所有类的解析
+                for (PsiClass topClass : ((PsiJavaFile) element).getClasses()) {
+                    invalidateWithInners(topClass);
+                }
+            } else if (element == null || element instanceof PsiDirectory) {
+                //目录、文件删除等无法定位到类的变化，全部丢弃
+                clear();
+            }
+            return;
+        }
+        //内部类变化时外部类的接口也一起失效
+        for (; psiClass != null; psiClass = PsiTreeUtil.getParentOfType(psiClass, PsiClass.class, true)) {
+            invalidate(psiClass.getQualifiedName());
+        }
+    }
+
+    private void invalidateWithInners(PsiClass psiClass) {
+        invalidate(psiClass.getQualifiedName());
+        for (PsiClass innerClass : psiClass.getInnerClasses()) {
+            invalidateWithInners(innerClass);
+        }
+    }
+
+    private void invalidate(String qualifiedName) {
+        if (qualifiedName == null) {
+            return;
+        }
+        Set<String> keys = dependents.remove(qualifiedName);
+        if (keys != null) {
+            keys.forEach(endpoints::remove);
+        }
+    }
+
+    public void clear() {
+        endpoints.clear();
+        dependents.clear();
+        diskLoaded.clear();
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+    }
+
+    /**
+     * 修改后按变化所在的类失效，删除和替换在变化前再处理一次，类被重命名或删除时旧类名的接口也能失效
+     */
+    private class ChangeListener extends PsiTreeChangeAdapter {
+        @Override
+        public void beforeChildRemoval(@NotNull PsiTreeChangeEvent event) {
+            invalidateChild(event.getChild());
+            invalidate(event.getParent());
+        }
+
+        @Override
+        public void beforeChildReplacement(@NotNull PsiTreeChangeEvent event) {
+            invalidateChild(event.getOldChild());
+            invalidate(event.getParent());
+        }
+
+        @Override
+        public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+            invalidate(event.getParent());
+        }
+
+        @Override
+        public void childAdded(@NotNull PsiTreeChangeEvent event) {
+            invalidate(event.getParent());
+        }
+
+        @Override
+        public void childMoved(@NotNull PsiTreeChangeEvent event) {
+            invalidate(event.getOldParent());
+            invalidate(event.getNewParent());
+        }
+
+        /**
+         * 被删除或替换的是类本身时，父节点上找不到它
+         */
+        private void invalidateChild(PsiElement child) {
+            if (child instanceof PsiClass) {
+                invalidateWithInners((PsiClass) child);
+            }
+        }
+    }
+}
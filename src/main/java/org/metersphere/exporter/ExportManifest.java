@@ -0,0 +1,110 @@
+package org.metersphere.exporter;
+
+import com.alibaba.fastjson.JSONObject;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import org.metersphere.model.PostmanModel;
+import org.metersphere.state.AppSettingState;
+import org.metersphere.utils.CodingUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 记录上一次成功导入到某个项目模块的每个接口的内容摘要，增量导出时只上传新增或变化的接口
+ * 按源文件分组保存在 IDE 的 system 目录下，一个导入目标一个文件，只导出部分文件时不影响其他文件的记录
+ */
+public class ExportManifest {
+    private static final Logger logger = Logger.getInstance(ExportManifest.class);
+    private static final Gson gson = new Gson();
+
+    //记录格式变化时修改，旧格式的记录不再读取
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path file;
+    //key: 源文件路径 value: (key: 请求方法 + url value: 接口内容的 md5)
+    private final Map<String, Map<String, String>> files;
+    private final Map<String, String> hashes = new HashMap<>();
+
+    private ExportManifest(Path file, Map<String, Map<String, String>> files) {
+        this.file = file;
+        this.files = files;
+        files.values().forEach(hashes::putAll);
+    }
+
+    /**
+     * @param state
+     * @param param 导入参数，取其中的项目、模块、版本
+     * @return
+     */
+    public static ExportManifest load(AppSettingState state, JSONObject param) {
+        String target = state.getMeterSphereAddress() + "|" + param.getString("projectId") + "|" + param.getString("moduleId") + "|" + param.getString("versionId");
+        Path file = Paths.get(PathManager.getSystemPath(), "metersphere", "manifest", CodingUtil.md5(target) + "-" + FORMAT_VERSION + ".json");
+        try {
+            //旧格式的记录不按文件分组，直接删除
+            Files.deleteIfExists(file.resolveSibling(CodingUtil.md5(target) + ".json"));
+        } catch (IOException e) {
+            logger.warn("删除旧的增量导出记录失败！", e);
+        }
+        Map<String, Map<String, String>> files = null;
+        if (Files.exists(file)) {
+            try {
+                files = gson.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), new TypeToken<Map<String, Map<String, String>>>() {
+                }.getType());
+            } catch (Exception e) {
+                logger.warn("读取增量导出记录失败，将全部重新导出", e);
+            }
+        }
+        return new ExportManifest(file, files != null ? files : new HashMap<>());
+    }
+
+    public static String key(PostmanModel.ItemBean item) {
+        PostmanModel.ItemBean.RequestBean request = item.getRequest();
+        return request.getMethod() + " " + request.getUrl().getRaw();
+    }
+
+    /**
+     * 请求方法、url、请求和响应的结构都参与计算，任何一项变化都视为接口变化
+     */
+    public static String hash(PostmanModel.ItemBean item) {
+        return CodingUtil.md5(gson.toJson(item));
+    }
+
+    public String get(String key) {
+        return hashes.get(key);
+    }
+
+    /**
+     * 本次导出的文件替换为新的记录，没有接口的文件和磁盘上已删除的文件不再保留，其他文件的记录不变
+     *
+     * @param current key: 本次导出的源文件路径 value: 该文件中的全部接口
+     */
+    public void update(Map<String, Map<String, String>> current) {
+        current.forEach((path, apis) -> {
+            if (apis.isEmpty()) {
+                files.remove(path);
+            } else {
+                files.put(path, apis);
+            }
+        });
+        files.keySet().removeIf(path -> !Files.exists(Paths.get(path)));
+        hashes.clear();
+        files.values().forEach(hashes::putAll);
+    }
+
+    public void save() {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, gson.toJson(files).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("保存增量导出记录失败！", e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.metersphere.exporter;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.metersphere.model.FieldWrapper;
+import org.metersphere.utils.TypeClassifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 一次导出过程中共享的缓存，导出结束后整体丢弃
+ * session 挂在所属项目上，不同项目同时导出互不影响，同一项目同时进行的导出共用一个 session
+ * PSI 发生修改后缓存自动失效，避免跨读锁使用过期的 PSI
+ */
+public class ExportSession implements AutoCloseable {
+    private static final Key<ExportSession> SESSION_KEY = Key.create("MeterSphere.ExportSession");
+
+    private final Project project;
+    //使用该 session 的导出数，只在持有类锁时读写
+    private int users;
+    //为空时不检查修改
+    private final PsiModificationTracker tracker;
+    private final AtomicLong modificationCount = new AtomicLong(-1);
+
+    //已解析的类型子树 key: 实际类型 + 剩余深度
+    private final Map<String, List<FieldWrapper>> subtreeCache = new ConcurrentHashMap<>();
+    //类型分类结果
+    private final Map<PsiClass, TypeClassifier.Kind> typeKinds = new ConcurrentHashMap<>();
+    //全限定名查找结果，找不到的也缓存
+    private final Map<String, Optional<PsiClass>> classCache = new ConcurrentHashMap<>();
+
+    private ExportSession(Project project) {
+        this.project = project;
+        this.tracker = project != null ? PsiModificationTracker.SERVICE.getInstance(project) : null;
+    }
+
+    public static synchronized ExportSession begin(Project project) {
+        ExportSession session = project.getUserData(SESSION_KEY);
+        if (session == null) {
+            session = new ExportSession(project);
+            project.putUserData(SESSION_KEY, session);
+        }
+        session.users++;
+        return session;
+    }
+
+    /**
+     * 项目没有进行中的导出时返回一个临时的 session，不会复用缓存
+     *
+     * @param project 为空时同样返回临时的 session
+     * @return
+     */
+    public static ExportSession current(Project project) {
+        ExportSession session = project != null ? project.getUserData(SESSION_KEY) : null;
+        return session != null ? session : new ExportSession(null);
+    }
+
+    public List<FieldWrapper> getSubtree(String key) {
+        checkModification();
+        return subtreeCache.get(key);
+    }
+
+    public void putSubtree(String key, List<FieldWrapper> children) {
+        subtreeCache.put(key, children);
+    }
+
+    public TypeClassifier.Kind getTypeKind(PsiClass psiClass, Function<PsiClass, TypeClassifier.Kind> classifier) {
+        checkModification();
+        TypeClassifier.Kind kind = typeKinds.get(psiClass);
+        if (kind == null) {
+            kind = classifier.apply(psiClass);
+            typeKinds.put(psiClass, kind);
+        }
+        return kind;
+    }
+
+    /**
+     * 先在项目代码中查找，找不到再查依赖库
+     *
+     * @param qualifiedName 全限定名
+     * @param project
+     * @return 找不到时返回 null
+     */
+    public PsiClass findClass(String qualifiedName, Project project) {
+        checkModification();
+        Optional<PsiClass> found = classCache.get(qualifiedName);
+        if (found == null || (found.isPresent() && !found.get().isValid())) {
+            JavaPsiFacade facade = JavaPsiFacade.getInstance(project);
+            PsiClass psiClass = facade.findClass(qualifiedName, GlobalSearchScope.projectScope(project));
+            if (psiClass == null) {
+                psiClass = facade.findClass(qualifiedName, GlobalSearchScope.allScope(project));
+            }
+            found = Optional.ofNullable(psiClass);
+            classCache.put(qualifiedName, found);
+        }
+        return found.orElse(null);
+    }
+
+    /**
+     * 每个节点都会调用，不加锁：PSI 只在写锁中修改，读锁期间修改计数不变，发现变化的线程负责清空缓存
+     */
+    private void checkModification() {
+        if (tracker == null || project.isDisposed()) {
+            return;
+        }
+        long count = tracker.getModificationCount();
+        long last = modificationCount.get();
+        if (count != last && modificationCount.compareAndSet(last, count)) {
+            clear();
+        }
+    }
+
+    private void clear() {
+        subtreeCache.clear();
+        typeKinds.clear();
+        classCache.clear();
+    }
+
+    @Override
+    public void close() {
+        if (project != null) {
+            synchronized (ExportSession.class) {
+                if (--users > 0) {
+                    return;
+                }
+                if (project.getUserData(SESSION_KEY) == this) {
+                    project.putUserData(SESSION_KEY, null);
+                }
+            }
+        }
+        clear();
+    }
+}
@@ -2,45 +2,93 @@ package org.metersphere.exporter;
 
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiJavaFile;
 import org.metersphere.AppSettingService;
 import org.metersphere.constants.PluginConstants;
 import org.metersphere.utils.MSApiUtil;
+import org.metersphere.utils.ProgressUtil;
 
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class ExporterFactory {
     private static AppSettingService appSettingService = AppSettingService.getInstance();
+    private static MeterSphereExporter meterSphereExporter = new MeterSphereExporter();
     private static Map<String, IExporter> exporterMap = new HashMap<>() {{
         put(PluginConstants.EXPORTER_POSTMAN, new PostmanExporter());
-        put(PluginConstants.EXPORTER_MS, new MeterSphereExporter());
+        put(PluginConstants.EXPORTER_MS, meterSphereExporter);
     }};
 
-    public static boolean export(String source, AnActionEvent event) throws Throwable {
+    public static PsiElement getElement(AnActionEvent event) {
         PsiElement element = event.getData(CommonDataKeys.PSI_FILE);
         if (element == null)
             element = event.getData(CommonDataKeys.PSI_ELEMENT);
-        if (element == null)
+        return element;
+    }
+
+    public static boolean export(String source, AnActionEvent event) throws Throwable {
+        PsiElement element = getElement(event);
+        if (element == null) {
             Messages.showInfoMessage("no valid psi element found!", PluginConstants.MessageTitle.Info.name());
+            return false;
+        }
+        return export(source, element);
+    }
 
-        if (!MSApiUtil.test(appSettingService.getState())) {
-            throw new RuntimeException(PluginConstants.EXCEPTIONCODEMAP.get(1));
+    /**
+     * 调用方不需要持有读锁，PSI 只在各自的短读锁中访问，网络请求不占用读锁
+     *
+     * @param source  导出类型
+     * @param element 选中的文件或目录
+     * @return
+     * @throws Throwable
+     */
+    public static boolean export(String source, PsiElement element) throws Throwable {
+        //连接测试和查找 controller 同时进行
+        CompletableFuture<Boolean> connected = MSApiUtil.testCached(appSettingService.getState());
+        try (ExportSession ignored = ExportSession.begin(element.getProject())) {
+            List<PsiJavaFile> files = ReadAction.compute(() -> findFiles(element));
+            if (!ProgressUtil.await(connected)) {
+                throw new RuntimeException(PluginConstants.EXCEPTIONCODEMAP.get(1));
+            }
+            if (files.size() == 0) {
+                throw new RuntimeException(PluginConstants.EXCEPTIONCODEMAP.get(2));
+            }
+
+            return exporterMap.get(source).export(files);
         }
-        List<PsiJavaFile> files = new LinkedList<>();
-        PostmanExporter.getFile(element, files);
-        files = files.stream().filter(f ->
+    }
+
+    /**
+     * @return 上一次导入到当前目标时失败、可以补传的批次
+     */
+    public static PendingImport getPendingImport() {
+        return meterSphereExporter.getPendingImport();
+    }
+
+    /**
+     * 补传失败的批次，不重新解析源码
+     */
+    public static boolean resume(PendingImport pending) {
+        return meterSphereExporter.resume(pending);
+    }
+
+    private static List<PsiJavaFile> findFiles(PsiElement element) {
+        List<PsiJavaFile> files;
+        if (appSettingService.getState().isIndexDiscovery()) {
+            files = ControllerFinder.find(element);
+        } else {
+            files = PostmanExporter.getFile(element, new LinkedList<>());
+        }
+        return files.stream().filter(f ->
                 f instanceof PsiJavaFile
         ).collect(Collectors.toList());
-        if (files.size() == 0) {
-            throw new RuntimeException(PluginConstants.EXCEPTIONCODEMAP.get(2));
-        }
-
-        return exporterMap.get(source).export(files);
     }
 }
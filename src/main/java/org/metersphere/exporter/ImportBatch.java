@@ -0,0 +1,28 @@
+package org.metersphere.exporter;
+
+import lombok.Data;
+
+/**
+ * 分批导入时的一批接口，内容是一个完整的 postman collection
+ */
+@Data
+public class ImportBatch {
+    //从 1 开始的批次序号
+    private int index;
+    //包含的 controller 数量
+    private int controllers;
+    private byte[] content;
+    private volatile Status status = Status.PENDING;
+    //失败原因
+    private volatile Throwable error;
+
+    public enum Status {
+        PENDING, UPLOADED, FAILED
+    }
+
+    public ImportBatch(int index, int controllers, byte[] content) {
+        this.index = index;
+        this.controllers = controllers;
+        this.content = content;
+    }
+}
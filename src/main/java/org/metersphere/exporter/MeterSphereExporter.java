@@ -1,18 +1,32 @@
 package org.metersphere.exporter;
 
 import com.alibaba.fastjson.JSONObject;
-import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiJavaFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
+import org.apache.http.NoHttpResponseException;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.entity.mime.content.ByteArrayBody;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.FileBody;
+import org.apache.http.entity.mime.content.InputStreamBody;
+import org.apache.http.util.EntityUtils;
 import org.jetbrains.annotations.NotNull;
 import org.metersphere.AppSettingService;
 import org.metersphere.constants.MSApiConstants;
@@ -21,63 +35,491 @@ import org.metersphere.model.PostmanModel;
 import org.metersphere.state.AppSettingState;
 import org.metersphere.utils.HttpFutureUtils;
 import org.metersphere.utils.MSApiUtil;
+import org.metersphere.utils.ProgressHttpEntity;
 import org.metersphere.utils.ProgressUtil;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.*;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class MeterSphereExporter implements IExporter {
     private Logger logger = Logger.getInstance(MeterSphereExporter.class);
     private final PostmanExporter postmanExporter = new PostmanExporter();
     private final AppSettingService appSettingService = AppSettingService.getInstance();
     private final V2Exporter v2Exporter = new V2Exporter();
+    private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_RETRY_DELAY = 30 * 1000L;
+    //重试等待期间检查取消的间隔 ms
+    private static final long RETRY_SLEEP_SLICE = 100L;
 
     @Override
     public boolean export(List<PsiJavaFile> files) throws Throwable {
         appSettingService.getState().setWithJsonSchema(true);
         appSettingService.getState().setWithBasePath(false);
 
-        List<PostmanModel> postmanModels = v2Exporter.transform(files, appSettingService.getState());
-        if (postmanModels.size() == 0) {
-            throw new RuntimeException(PluginConstants.EXCEPTIONCODEMAP.get(3));
-        }
-        File temp = File.createTempFile(UUID.randomUUID().toString(), null);
-        BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(temp));
-        JSONObject jsonObject = new JSONObject();
-        jsonObject.put("item", postmanModels);
-        JSONObject info = new JSONObject();
-        info.put("schema", "https://schema.getpostman.com/json/collection/v2.1.0/collection.json");
+        //提前校验导入参数，避免解析完才发现没有选择模块
+        JSONObject param = buildParam(appSettingService.getState());
         String dateTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
         String exportName = StringUtils.isNotBlank(appSettingService.getState().getExportModuleName()) ? appSettingService.getState().getExportModuleName() : files.get(0).getProject().getName();
-        info.put("name", exportName);
-        info.put("description", "exported at " + dateTime);
-        info.put("_postman_id", UUID.randomUUID().toString());
-        jsonObject.put("info", info);
-        bufferedWriter.write(new Gson().toJson(jsonObject));
-        bufferedWriter.flush();
-        bufferedWriter.close();
+        if (appSettingService.getState().isIncrementalSync()) {
+            //不覆盖模式下服务端会跳过已存在的接口，无法保证记录与服务端一致，只在覆盖模式下增量导出
+            if (MSApiConstants.MODE_FULLCOVERAGE.equalsIgnoreCase(param.getString("modeId"))) {
+                return exportIncremental(files, param, exportName, "exported at " + dateTime);
+            }
+            logger.info("incremental export requires fullCoverage mode, fall back to full export");
+            Notifications.Bus.notify(new Notification(PluginConstants.NOTIFICATION_GROUP, PluginConstants.MessageTitle.Info.name(),
+                    "Incremental sync only works in cover mode, all apis will be exported.", NotificationType.WARNING), files.get(0).getProject());
+        }
+        if (appSettingService.getState().isBatchUpload()) {
+            return exportBatched(files, param, exportName, "exported at " + dateTime);
+        }
+        if (appSettingService.getState().isStreamingUpload()) {
+            return exportStreaming(files, param, exportName, "exported at " + dateTime);
+        }
+
+        File temp = File.createTempFile(UUID.randomUUID().toString(), null);
+        try {
+            int count;
+            try (CollectionWriter writer = new CollectionWriter(new FileOutputStream(temp))) {
+                writer.begin(exportName, "exported at " + dateTime, UUID.randomUUID().toString());
+                v2Exporter.transform(files, appSettingService.getState(), writer::write);
+                writer.end();
+                count = writer.getCount();
+            }
+            if (count == 0) {
+                throw new RuntimeException(PluginConstants.EXCEPTIONCODEMAP.get(3));
+            }
+            AtomicReference<Throwable> throwableAtomicReference = new AtomicReference<>();
+            boolean r = uploadWithRetry(() -> new FileBody(temp, ContentType.APPLICATION_JSON), param, throwableAtomicReference, ProgressManager.getGlobalProgressIndicator());
+            if (!r) {
+                keepPending(Files.readAllBytes(temp.toPath()), count, param, exportName, throwableAtomicReference.get());
+                throw throwableAtomicReference.get();
+            }
+            PendingImport.clear();
+            return r;
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * 上传失败时保留已生成的文档，下次导出时直接补传
+     */
+    private void keepPending(byte[] content, int count, JSONObject param, String exportName, Throwable error) {
+        ImportBatch batch = new ImportBatch(1, count, content);
+        batch.setStatus(ImportBatch.Status.FAILED);
+        batch.setError(error);
+        PendingImport.set(new PendingImport(PendingImport.target(appSettingService.getState(), param), param, exportName, List.of(batch)));
+    }
+
+    /**
+     * 解析结果通过管道直接写入分块上传的 multipart 请求，不落盘
+     * 第一个 controller 解析完成后才开始上传，没有接口时不会发请求
+     * 流式上传不能重放，失败后用已解析的结果在内存中重新生成文档，按普通上传重试，仍失败时保留供补传
+     *
+     * @param files
+     * @param param       导入参数
+     * @param exportName
+     * @param description
+     * @return
+     * @throws Throwable
+     */
+    private boolean exportStreaming(List<PsiJavaFile> files, JSONObject param, String exportName, String description) throws Throwable {
+        ProgressIndicator indicator = ProgressManager.getGlobalProgressIndicator();
+        AtomicReference<Throwable> throwableAtomicReference = new AtomicReference<>();
+        PipedInputStream in = new PipedInputStream(PIPE_BUFFER_SIZE);
+        CollectionWriter writer = new CollectionWriter(new PipedOutputStream(in));
+        List<Future<Boolean>> upload = new ArrayList<>(1);
+        //解析结果来自模型缓存，只保留引用，重新生成文档时不需要再次解析
+        List<PostmanModel> models = new ArrayList<>();
+        //上传提前结束时管道已关闭，之后的结果只收集不写出
+        AtomicBoolean broken = new AtomicBoolean();
+        try {
+            writer.begin(exportName, description, UUID.randomUUID().toString());
+            v2Exporter.transform(files, appSettingService.getState(), model -> {
+                models.add(model);
+                if (upload.isEmpty()) {
+                    upload.add(ApplicationManager.getApplication().executeOnPooledThread(() -> {
+                        try {
+                            return uploadToServer(new InputStreamBody(in, ContentType.APPLICATION_JSON, exportName + ".json"), param, throwableAtomicReference, indicator);
+                        } finally {
+                            closeQuietly(in);
+                        }
+                    }));
+                }
+                if (!broken.get()) {
+                    try {
+                        writer.write(model);
+                    } catch (JsonIOException e) {
+                        broken.set(true);
+                    }
+                }
+            });
+            if (broken.get()) {
+                closeQuietly(writer);
+            } else {
+                try {
+                    writer.end();
+                    writer.close();
+                } catch (IOException e) {
+                    broken.set(true);
+                    closeQuietly(writer);
+                }
+            }
+        } catch (Throwable e) {
+            //先关闭读取端中止上传，避免把不完整的文档提交到服务端
+            closeQuietly(in);
+            closeQuietly(writer);
+            if (!upload.isEmpty() && !waitUpload(upload.get(0), throwableAtomicReference) && throwableAtomicReference.get() != null) {
+                throw throwableAtomicReference.get();
+            }
+            throw e;
+        }
+        if (upload.isEmpty()) {
+            throw new RuntimeException(PluginConstants.EXCEPTIONCODEMAP.get(3));
+        }
+        if (waitUpload(upload.get(0), throwableAtomicReference) && !broken.get()) {
+            PendingImport.clear();
+            return true;
+        }
+        byte[] content = writeCollection(models, exportName, description);
+        int failedAttempts = throwableAtomicReference.get() != null ? 1 : 0;
+        if (!uploadWithRetry(() -> new ByteArrayBody(content, ContentType.APPLICATION_JSON, exportName + ".json"), param, throwableAtomicReference, indicator, failedAttempts)) {
+            keepPending(content, models.size(), param, exportName, throwableAtomicReference.get());
+            throw throwableAtomicReference.get();
+        }
+        PendingImport.clear();
+        return true;
+    }
+
+    /**
+     * 按 controller 数量或字节数分批，边解析边以有限并发上传到同一个模块，单批失败不影响其他批次
+     *
+     * @param files
+     * @param param       导入参数
+     * @param exportName
+     * @param description
+     * @return
+     */
+    private boolean exportBatched(List<PsiJavaFile> files, JSONObject param, String exportName, String description) {
+        AppSettingState state = appSettingService.getState();
+        return uploadBatched(writer -> v2Exporter.transform(files, state, writer::write), param, exportName, description);
+    }
+
+    /**
+     * @param source      把要上传的 controller 逐个交给分批写入
+     * @param param       导入参数
+     * @param exportName
+     * @param description
+     * @return
+     */
+    private boolean uploadBatched(Consumer<BatchWriter> source, JSONObject param, String exportName, String description) {
+        AppSettingState state = appSettingService.getState();
+        ProgressIndicator indicator = ProgressManager.getGlobalProgressIndicator();
+        int concurrency = Math.max(1, state.getBatchConcurrency());
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("MeterSphere Upload", concurrency);
+        List<ImportBatch> batches = new ArrayList<>();
+        Deque<Future<?>> pending = new ArrayDeque<>();
+        try {
+            BatchWriter writer = new BatchWriter(exportName, description, state.getBatchMaxControllers(), state.getBatchMaxBytes(), batch -> {
+                //限制已切分未上传的批次数，避免解析太快占用过多内存
+                while (pending.size() >= concurrency * 2) {
+                    ProgressUtil.await(pending.poll());
+                }
+                batches.add(batch);
+                pending.add(executor.submit(() -> uploadBatch(batch, param, exportName, indicator)));
+            });
+            source.accept(writer);
+            writer.finish();
+            while (!pending.isEmpty()) {
+                ProgressUtil.await(pending.poll());
+            }
+        } finally {
+            pending.forEach(f -> f.cancel(true));
+        }
+        if (batches.isEmpty()) {
+            throw new RuntimeException(PluginConstants.EXCEPTIONCODEMAP.get(3));
+        }
+        return checkBatches(batches, param, exportName);
+    }
+
+    /**
+     * 和上一次成功导入的记录比较，只上传新增或变化的接口，导入参数与全量导出一致（覆盖模式）
+     * 没有记录时（第一次导出或记录丢失）上传全部接口，成功后再生成记录
+     * 上传成功后本次导出的文件的记录替换为其中的全部接口，源码中已删除的接口不再保留，恢复后会重新上传
+     * 不在本次导出范围内的文件的记录保持不变
+     *
+     * @param files
+     * @param param       导入参数
+     * @param exportName
+     * @param description
+     * @return
+     * @throws Throwable
+     */
+    private boolean exportIncremental(List<PsiJavaFile> files, JSONObject param, String exportName, String description) throws Throwable {
+        AppSettingState state = appSettingService.getState();
+        ExportManifest manifest = ExportManifest.load(state, param);
+        List<PostmanModel> modified = new ArrayList<>();
+        //本次导出的每个文件都有记录，没有解析出接口的文件用空记录清除旧的接口
+        Map<String, Map<String, String>> currentHashes = new HashMap<>();
+        files.forEach(f -> currentHashes.put(filePath(f), new HashMap<>()));
+        AtomicInteger total = new AtomicInteger();
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger changed = new AtomicInteger();
+        v2Exporter.transformByFile(files, state, (f, model) -> {
+            Map<String, String> fileHashes = currentHashes.get(filePath(f));
+            PostmanModel modifiedModel = copyWithoutItems(model);
+            for (PostmanModel.ItemBean item : model.getItem()) {
+                String key = ExportManifest.key(item);
+                String hash = ExportManifest.hash(item);
+                fileHashes.put(key, hash);
+                total.incrementAndGet();
+                String old = manifest.get(key);
+                if (old == null) {
+                    added.incrementAndGet();
+                } else if (!old.equals(hash)) {
+                    changed.incrementAndGet();
+                } else {
+                    continue;
+                }
+                modifiedModel.getItem().add(item);
+            }
+            if (!modifiedModel.getItem().isEmpty()) {
+                modified.add(modifiedModel);
+            }
+        });
+        if (total.get() == 0) {
+            throw new RuntimeException(PluginConstants.EXCEPTIONCODEMAP.get(3));
+        }
+        logger.info(String.format("incremental export: %d apis, %d added, %d changed", total.get(), added.get(), changed.get()));
+        if (!modified.isEmpty()) {
+            uploadModels(modified, param, exportName, description);
+        }
+        manifest.update(currentHashes);
+        manifest.save();
+        return true;
+    }
+
+    private String filePath(PsiJavaFile f) {
+        VirtualFile virtualFile = f.getVirtualFile();
+        return virtualFile != null ? virtualFile.getPath() : f.getName();
+    }
+
+    private PostmanModel copyWithoutItems(PostmanModel model) {
+        PostmanModel copy = new PostmanModel();
+        copy.setName(model.getName());
+        copy.setDescription(model.getDescription());
+        copy.setItem(new ArrayList<>());
+        return copy;
+    }
+
+    private byte[] writeCollection(List<PostmanModel> models, String exportName, String description) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (CollectionWriter writer = new CollectionWriter(buffer)) {
+            writer.begin(exportName, description, UUID.randomUUID().toString());
+            models.forEach(writer::write);
+            writer.end();
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 开启分批上传时变化的接口同样分批上传，失败的批次保留供补传
+     */
+    private void uploadModels(List<PostmanModel> models, JSONObject param, String exportName, String description) throws Throwable {
+        if (appSettingService.getState().isBatchUpload()) {
+            uploadBatched(writer -> models.forEach(writer::write), param, exportName, description);
+            return;
+        }
+        byte[] content = writeCollection(models, exportName, description);
         AtomicReference<Throwable> throwableAtomicReference = new AtomicReference<>();
-        boolean r = uploadToServer(temp, throwableAtomicReference);
-        if (!r) {
+        if (!uploadWithRetry(() -> new ByteArrayBody(content, ContentType.APPLICATION_JSON, exportName + ".json"), param, throwableAtomicReference, ProgressManager.getGlobalProgressIndicator())) {
             throw throwableAtomicReference.get();
         }
-        if (temp.exists()) {
-            temp.delete();
+    }
+
+    /**
+     * 只补传上一次失败的批次，不重新解析源码
+     *
+     * @param pending
+     * @return
+     */
+    public boolean resume(PendingImport pending) {
+        ProgressIndicator indicator = ProgressManager.getGlobalProgressIndicator();
+        int concurrency = Math.max(1, appSettingService.getState().getBatchConcurrency());
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("MeterSphere Upload", concurrency);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (ImportBatch batch : pending.getBatches()) {
+                batch.setStatus(ImportBatch.Status.PENDING);
+                batch.setError(null);
+                futures.add(executor.submit(() -> uploadBatch(batch, pending.getParam(), pending.getExportName(), indicator)));
+            }
+            for (Future<?> future : futures) {
+                ProgressUtil.await(future);
+            }
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+        return checkBatches(pending.getBatches(), pending.getParam(), pending.getExportName());
+    }
+
+    /**
+     * 有失败的批次时保留下来供下次补传，并汇总失败原因
+     */
+    private boolean checkBatches(List<ImportBatch> batches, JSONObject param, String exportName) {
+        List<ImportBatch> failed = batches.stream().filter(b -> b.getStatus() != ImportBatch.Status.UPLOADED).collect(Collectors.toList());
+        if (failed.isEmpty()) {
+            PendingImport.clear();
+            return true;
         }
-        return r;
+        PendingImport.set(new PendingImport(PendingImport.target(appSettingService.getState(), param), param, exportName, failed));
+        String reason = failed.stream()
+                .map(b -> String.format("batch %d: %s", b.getIndex(), b.getError() == null ? "unknown" : b.getError().getMessage()))
+                .collect(Collectors.joining("; "));
+        throw new RuntimeException(String.format("%d of %d batches failed! %s", failed.size(), batches.size(), reason));
     }
 
-    private boolean uploadToServer(File file, AtomicReference<Throwable> throwableAtomicReference) {
+    private void uploadBatch(ImportBatch batch, JSONObject param, String exportName, ProgressIndicator indicator) {
+        AtomicReference<Throwable> throwableAtomicReference = new AtomicReference<>();
+        String fileName = exportName + "-" + batch.getIndex() + ".json";
+        if (uploadWithRetry(() -> new ByteArrayBody(batch.getContent(), ContentType.APPLICATION_JSON, fileName), param, throwableAtomicReference, indicator)) {
+            batch.setStatus(ImportBatch.Status.UPLOADED);
+        } else {
+            batch.setError(throwableAtomicReference.get());
+            batch.setStatus(ImportBatch.Status.FAILED);
+        }
+        String status = String.format("Batch %d (%d controllers) %s", batch.getIndex(), batch.getControllers(), batch.getStatus().name().toLowerCase());
+        logger.info(status);
+        if (indicator != null) {
+            indicator.setText2(status);
+        }
+    }
+
+    private boolean uploadWithRetry(Supplier<ContentBody> body, JSONObject param, AtomicReference<Throwable> throwableAtomicReference, ProgressIndicator indicator) {
+        return uploadWithRetry(body, param, throwableAtomicReference, indicator, 0);
+    }
+
+    /**
+     * 5xx、连接被重置、超时等临时错误按指数退避加随机抖动重试，body 每次重新创建
+     * 会重试的失败只记 warn，最终失败才记 error
+     *
+     * @param body
+     * @param param
+     * @param throwableAtomicReference 已失败时保存上一次的错误
+     * @param indicator
+     * @param failedAttempts           调用前已经失败的次数，大于 0 时先判断能否重试并退避
+     * @return
+     */
+    private boolean uploadWithRetry(Supplier<ContentBody> body, JSONObject param, AtomicReference<Throwable> throwableAtomicReference, ProgressIndicator indicator, int failedAttempts) {
+        AppSettingState state = appSettingService.getState();
+        int retries = Math.max(0, state.getUploadRetries());
+        for (int attempt = failedAttempts; ; attempt++) {
+            if (attempt > 0) {
+                Throwable last = throwableAtomicReference.get();
+                if (attempt > retries || !isTransient(last)) {
+                    logger.error("上传至 MS 失败！", last);
+                    return false;
+                }
+                long delay = Math.min(MAX_RETRY_DELAY, state.getRetryBaseDelay() * (1L << (attempt - 1)));
+                delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+                logger.warn(String.format("上传失败，%d ms 后第 %d 次重试: %s", delay, attempt, last));
+                try {
+                    sleepCancelable(delay, indicator);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            throwableAtomicReference.set(null);
+            if (uploadToServer(body.get(), param, throwableAtomicReference, indicator)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 分段等待，每段之间检查用户是否取消
+     * 上传批次的线程没有绑定 indicator，需要显式传入导出的 indicator
+     */
+    private static void sleepCancelable(long delay, ProgressIndicator indicator) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + delay;
+        for (long left = delay; left > 0; left = deadline - System.currentTimeMillis()) {
+            if (indicator != null) {
+                indicator.checkCanceled();
+            } else {
+                ProgressManager.checkCanceled();
+            }
+            Thread.sleep(Math.min(left, RETRY_SLEEP_SLICE));
+        }
+    }
+
+    private static boolean isTransient(Throwable e) {
+        if (e instanceof ImportStatusException) {
+            return ((ImportStatusException) e).getStatusCode() >= 500;
+        }
+        return e instanceof SocketTimeoutException
+                || e instanceof ConnectTimeoutException
+                || e instanceof NoHttpResponseException
+                || e instanceof SocketException;
+    }
+
+    /**
+     * 导入接口返回了非成功的状态码
+     */
+    private static class ImportStatusException extends RuntimeException {
+        private final int statusCode;
+
+        ImportStatusException(int statusCode, String reason) {
+            super(reason);
+            this.statusCode = statusCode;
+        }
+
+        int getStatusCode() {
+            return statusCode;
+        }
+    }
+
+    private boolean waitUpload(Future<Boolean> upload, AtomicReference<Throwable> throwableAtomicReference) {
+        try {
+            return upload.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throwableAtomicReference.compareAndSet(null, e);
+            return false;
+        } catch (ExecutionException e) {
+            throwableAtomicReference.compareAndSet(null, e.getCause());
+            return false;
+        }
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logger.warn("关闭流失败！", e);
+        }
+    }
+
+    private boolean uploadToServer(ContentBody file, JSONObject param, AtomicReference<Throwable> throwableAtomicReference, ProgressIndicator indicator) {
         ProgressUtil.show((String.format("Start to sync to MeterSphere Server")));
-        CloseableHttpClient httpclient = HttpFutureUtils.getOneHttpClient();
 
         AppSettingState state = appSettingService.getState();
         String url = state.getMeterSphereAddress() + "/api/definition/import";
@@ -86,24 +528,30 @@ public class MeterSphereExporter implements IExporter {
         httpPost.setHeader("accesskey", appSettingService.getState().getAccesskey());
         httpPost.setHeader("signature", MSApiUtil.getSinature(appSettingService.getState()));
         CloseableHttpResponse response = null;
-        JSONObject param = buildParam(state);
-        HttpEntity formEntity = MultipartEntityBuilder.create().addBinaryBody("file", file, ContentType.APPLICATION_JSON, null)
+        HttpEntity formEntity = MultipartEntityBuilder.create().addPart("file", file)
                 .addBinaryBody("request", param.toJSONString().getBytes(StandardCharsets.UTF_8), ContentType.APPLICATION_JSON, null).build();
 
-        httpPost.setEntity(formEntity);
+        httpPost.setEntity(new ProgressHttpEntity(formEntity, indicator));
         try {
-            response = httpclient.execute(httpPost);
+            response = HttpFutureUtils.execute(httpPost);
+            //读完响应体，连接才能归还连接池复用
+            EntityUtils.consume(response.getEntity());
             StatusLine status = response.getStatusLine();
             int statusCode = status.getStatusCode();
             if (statusCode == HttpStatus.SC_OK || statusCode == HttpStatus.SC_CREATED) {
                 return true;
             } else {
-                throwableAtomicReference.set(new RuntimeException(response.getStatusLine().getReasonPhrase()));
+                if (statusCode == HttpStatus.SC_UNAUTHORIZED || statusCode == HttpStatus.SC_FORBIDDEN) {
+                    //凭证已失效，下次导出重新测试连接
+                    MSApiUtil.invalidateTest();
+                }
+                throwableAtomicReference.set(new ImportStatusException(statusCode, response.getStatusLine().getReasonPhrase()));
                 return false;
             }
         } catch (Exception e) {
+            //是否重试由调用方决定，这里只记 warn
             throwableAtomicReference.set(e);
-            logger.error("上传至 MS 失败！", e);
+            logger.warn("上传至 MS 失败！", e);
         } finally {
             if (response != null) {
                 try {
@@ -113,16 +561,21 @@ public class MeterSphereExporter implements IExporter {
                     logger.error("关闭 response 失败！", e);
                 }
             }
-            try {
-                httpclient.close();
-            } catch (IOException e) {
-                throwableAtomicReference.set(e);
-                logger.error("关闭 httpclient 失败！", e);
-            }
         }
         return false;
     }
 
+    /**
+     * @return 导入目标和当前配置一致的待补传批次
+     */
+    public PendingImport getPendingImport() {
+        AppSettingState state = appSettingService.getState();
+        if (state.getModule() == null || state.getProject() == null) {
+            return null;
+        }
+        return PendingImport.get(state, buildParam(state));
+    }
+
     @NotNull
     private JSONObject buildParam(AppSettingState state) {
         JSONObject param = new JSONObject();
@@ -0,0 +1,205 @@
+package org.metersphere.exporter;
+
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.extensions.PluginId;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import org.metersphere.model.PostmanModel;
+import org.metersphere.state.AppSettingState;
+import org.metersphere.utils.CodingUtil;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * controller 解析结果的磁盘缓存，IDE 重启后未变化的 controller 直接读取缓存
+ * 缓存有效的条件：插件版本和缓存格式、controller 文件内容、引用到的每个类的内容、影响解析结果的配置都没有变化
+ * 不同版本的缓存放在不同目录，旧版本的目录和长时间未使用的缓存在每次 IDE 启动后第一次使用时清理
+ * 需要在读锁中调用
+ */
+public class ModelDiskCache {
+    private static final Logger logger = Logger.getInstance(ModelDiskCache.class);
+    private static final String PLUGIN_ID = "org.metersphere.Metersphere";
+    //解析结果的结构或生成逻辑变化时加 1，插件版本不变也能让旧缓存失效
+    private static final int FORMAT_VERSION = 2;
+    //超过该时间未使用的缓存会被清理
+    private static final long MAX_IDLE = TimeUnit.DAYS.toMillis(30);
+    private static final Path ROOT = Paths.get(PathManager.getSystemPath(), "metersphere", "models");
+    private static final String VERSION = FORMAT_VERSION + "-" + pluginVersion();
+    private static final AtomicBoolean cleaned = new AtomicBoolean();
+
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private String version;
+        private String fileHash;
+        private String settings;
+        //引用到的类 key: 全限定名 value: 内容摘要
+        private Map<String, String> dependencies;
+        private PostmanModel model;
+    }
+
+    /**
+     * @param f
+     * @param state
+     * @param referencedClasses 命中缓存时填入缓存记录的引用类
+     * @return
+     */
+    public static PostmanModel load(PsiJavaFile f, AppSettingState state, Set<PsiClass> referencedClasses) {
+        cleanupOnce();
+        Path path = cachePath(f);
+        if (path == null || !Files.exists(path)) {
+            return null;
+        }
+        Entry entry;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            entry = (Entry) in.readObject();
+        } catch (Exception e) {
+            //插件升级后模型结构变化等情况，直接当作没有缓存
+            logger.info("ignore invalid model cache " + path + ": " + e);
+            return null;
+        }
+        if (!VERSION.equals(entry.version) || !Objects.equals(entry.settings, settings(f, state)) || !Objects.equals(entry.fileHash, CodingUtil.md5(f.getText()))) {
+            return null;
+        }
+        //同一个类被多个 controller 引用，查找结果在本次导出中共享
+        ExportSession session = ExportSession.current(f.getProject());
+        for (Map.Entry<String, String> dependency : entry.dependencies.entrySet()) {
+            PsiClass psiClass = session.findClass(dependency.getKey(), f.getProject());
+            if (psiClass == null || !dependency.getValue().equals(classHash(psiClass))) {
+                return null;
+            }
+            referencedClasses.add(psiClass);
+        }
+        touch(path);
+        return entry.model;
+    }
+
+    /**
+     * @param f
+     * @param state
+     * @param model
+     * @param referencedClasses 请求参数和返回值中引用到的类
+     */
+    public static void save(PsiJavaFile f, AppSettingState state, PostmanModel model, Set<PsiClass> referencedClasses) {
+        Path path = cachePath(f);
+        if (path == null) {
+            return;
+        }
+        Entry entry = new Entry();
+        entry.version = VERSION;
+        entry.fileHash = CodingUtil.md5(f.getText());
+        entry.settings = settings(f, state);
+        entry.dependencies = new HashMap<>();
+        for (PsiClass psiClass : referencedClasses) {
+            if (psiClass.getQualifiedName() != null) {
+                entry.dependencies.put(psiClass.getQualifiedName(), classHash(psiClass));
+            }
+        }
+        entry.model = model;
+        try {
+            Files.createDirectories(path.getParent());
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                out.writeObject(entry);
+            }
+        } catch (IOException e) {
+            logger.warn("写入解析结果缓存失败！", e);
+        }
+    }
+
+    private static String settings(PsiJavaFile f, AppSettingState state) {
+        //host 使用了项目名
+        return f.getProject().getName() + "|" + state.exportSignature();
+    }
+
+    /**
+     * 源码取文件内容的摘要，依赖库中的类取所在 jar 的路径和时间戳
+     */
+    private static String classHash(PsiClass psiClass) {
+        PsiFile file = psiClass.getContainingFile();
+        if (file == null) {
+            return "";
+        }
+        if (!(file instanceof PsiCompiledElement)) {
+            return CodingUtil.md5(file.getText());
+        }
+        VirtualFile virtualFile = file.getVirtualFile();
+        return virtualFile == null ? "" : virtualFile.getPath() + ":" + virtualFile.getTimeStamp();
+    }
+
+    private static Path cachePath(PsiJavaFile f) {
+        VirtualFile virtualFile = f.getVirtualFile();
+        if (virtualFile == null) {
+            return null;
+        }
+        String key = CodingUtil.md5(f.getProject().getLocationHash() + "|" + virtualFile.getPath());
+        return ROOT.resolve(VERSION).resolve(key + ".ser");
+    }
+
+    private static String pluginVersion() {
+        IdeaPluginDescriptor plugin = PluginManagerCore.getPlugin(PluginId.getId(PLUGIN_ID));
+        return plugin == null ? "unknown" : plugin.getVersion();
+    }
+
+    /**
+     * 命中时更新修改时间，清理时按修改时间判断是否长时间未使用
+     */
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug("update model cache time failed: " + path, e);
+        }
+    }
+
+    private static void cleanupOnce() {
+        if (cleaned.compareAndSet(false, true)) {
+            ApplicationManager.getApplication().executeOnPooledThread(ModelDiskCache::cleanup);
+        }
+    }
+
+    /**
+     * 删除其他版本的缓存目录，以及当前版本中超过 MAX_IDLE 未使用的缓存
+     */
+    private static void cleanup() {
+        if (!Files.isDirectory(ROOT)) {
+            return;
+        }
+        long expireBefore = System.currentTimeMillis() - MAX_IDLE;
+        try (Stream<Path> dirs = Files.list(ROOT)) {
+            for (Path dir : (Iterable<Path>) dirs::iterator) {
+                boolean current = dir.getFileName().toString().equals(VERSION);
+                if (!Files.isDirectory(dir)) {
+                    //早期版本直接放在根目录下的缓存
+                    Files.deleteIfExists(dir);
+                    continue;
+                }
+                try (Stream<Path> files = Files.list(dir)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        if (!current || Files.getLastModifiedTime(file).toMillis() < expireBefore) {
+                            Files.deleteIfExists(file);
+                        }
+                    }
+                }
+                if (!current) {
+                    Files.deleteIfExists(dir);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("清理解析结果缓存失败！", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.metersphere.exporter;
+
+import com.alibaba.fastjson.JSONObject;
+import lombok.Data;
+import org.metersphere.state.AppSettingState;
+
+import java.util.List;
+
+/**
+ * 上一次导入失败的批次，重新导出时可以只补传这些批次，不需要重新解析源码
+ * 只保存在内存中，导入目标变化后失效
+ */
+@Data
+public class PendingImport {
+    private static volatile PendingImport current;
+
+    //导入目标: 服务地址 + 导入参数
+    private final String target;
+    private final JSONObject param;
+    private final String exportName;
+    private final List<ImportBatch> batches;
+
+    public static String target(AppSettingState state, JSONObject param) {
+        return state.getMeterSphereAddress() + "|" + param.toJSONString();
+    }
+
+    /**
+     * @param state
+     * @param param 当前配置对应的导入参数
+     * @return 导入目标和当前配置一致的待补传批次，没有时返回 null
+     */
+    public static PendingImport get(AppSettingState state, JSONObject param) {
+        PendingImport pending = current;
+        if (pending == null || !pending.getTarget().equals(target(state, param))) {
+            return null;
+        }
+        return pending;
+    }
+
+    public static void set(PendingImport pending) {
+        current = pending;
+    }
+
+    public static void clear() {
+        current = null;
+    }
+}
@@ -1,12 +1,11 @@
 package org.metersphere.exporter;
 
-import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.Lists;
-import com.google.gson.Gson;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.fileChooser.FileChooserDescriptor;
 import com.intellij.openapi.fileChooser.FileChooserDialog;
 import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDirectory;
@@ -15,11 +14,14 @@ import com.intellij.psi.PsiJavaFile;
 import org.jetbrains.annotations.NotNull;
 import org.metersphere.AppSettingService;
 import org.metersphere.constants.PluginConstants;
-import org.metersphere.model.PostmanModel;
 import org.metersphere.utils.ProgressUtil;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
@@ -46,11 +48,6 @@ public class PostmanExporter implements IExporter {
             appSettingService.getState().setWithJsonSchema(false);
             appSettingService.getState().setWithBasePath(true);
 
-            List<PostmanModel> postmanModels = v2Exporter.transform(files, appSettingService.getState());
-            if (postmanModels.size() == 0) {
-                Messages.showInfoMessage("No java api was found! please change your search root", infoTitle());
-                return false;
-            }
             FileChooserDescriptor fileChooserDescriptor = new FileChooserDescriptor(false, true, false, false, false, false);
             fileChooserDescriptor.setDescription("Choose the location you want to export");
             FileChooserDialog fileChooserDialog = FileChooserFactory.getInstance().createFileChooser(fileChooserDescriptor, null, null);
@@ -58,23 +55,35 @@ public class PostmanExporter implements IExporter {
             if (file.length == 0) {
                 Messages.showInfoMessage("No directory selected", infoTitle());
                 return false;
-            } else {
-                Messages.showInfoMessage(String.format("will be exported to %s", file[0].getCanonicalPath() + "/postman.json"), infoTitle());
             }
 
-            BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(file[0].getCanonicalPath() + "/postman.json"));
-            JSONObject jsonObject = new JSONObject();
-            jsonObject.put("item", postmanModels);
-            JSONObject info = new JSONObject();
-            info.put("schema", "https://schema.getpostman.com/json/collection/v2.1.0/collection.json");
-            String dateTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            info.put("name", files.get(0).getProject().getName());
-            info.put("description", "exported at " + dateTime);
-            jsonObject.put("info", info);
-            bufferedWriter.write(new Gson().toJson(jsonObject));
-            bufferedWriter.flush();
-            bufferedWriter.close();
+            //边解析边写入同目录下的临时文件，不在内存中保存整个 collection，成功后再替换已有的 postman.json
+            File target = new File(file[0].getCanonicalPath() + "/postman.json");
+            File temp = File.createTempFile("postman", ".json.tmp", target.getParentFile());
+            try {
+                String dateTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+                int count;
+                try (CollectionWriter writer = new CollectionWriter(new FileOutputStream(temp))) {
+                    writer.begin(files.get(0).getProject().getName(), "exported at " + dateTime, null);
+                    v2Exporter.transform(files, appSettingService.getState(), writer::write);
+                    writer.end();
+                    count = writer.getCount();
+                }
+                if (count == 0) {
+                    Messages.showInfoMessage("No java api was found! please change your search root", infoTitle());
+                    return false;
+                }
+                replace(temp, target);
+            } finally {
+                if (temp.exists()) {
+                    temp.delete();
+                }
+            }
+            Messages.showInfoMessage(String.format("exported to %s", target.getPath()), infoTitle());
             return true;
+        } catch (ProcessCanceledException e) {
+            //取消导出不是错误，交给进度框架处理
+            throw e;
         } catch (Exception e) {
             logger.error("MeterSphere plugin export to postman error start......");
             logger.error(e);
@@ -83,6 +92,14 @@ public class PostmanExporter implements IExporter {
         }
     }
 
+    private void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     @NotNull
     public static String infoTitle() {
         return PluginConstants.MessageTitle.Info.name();
@@ -1,20 +1,42 @@
 package org.metersphere.exporter;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.NonBlockingReadAction;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.*;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.concurrency.CancellablePromise;
 import org.metersphere.AppSettingService;
 import org.metersphere.model.PostmanModel;
 import org.metersphere.model.RequestWrapper;
 import org.metersphere.state.AppSettingState;
 import org.metersphere.utils.FieldUtil;
+import org.metersphere.utils.ProgressUtil;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public class V2Exporter implements IExporter {
     private Logger logger = Logger.getInstance(MeterSphereExporter.class);
     private static AppSettingService appSettingService = AppSettingService.getInstance();
+    private static final int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService transformExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor("MeterSphere Transform", parallelism);
+    //每种配置一个缓存 key
+    private static final Map<String, Key<CachedValue<PostmanModel>>> cacheKeys = new ConcurrentHashMap<>();
 
     @Override
     public boolean export(List<PsiJavaFile> files) throws IOException {
@@ -23,50 +45,195 @@ public class V2Exporter implements IExporter {
 
     public List<PostmanModel> transform(List<PsiJavaFile> files, AppSettingState state) {
         List<PostmanModel> models = new LinkedList<>();
-        files.forEach(f -> {
-            logger.info(f.getText() + "...........");
-            PsiClass controllerClass = PsiTreeUtil.findChildOfType(f, PsiClass.class);
-            if (controllerClass != null) {
-                PostmanModel model = new PostmanModel();
-                if (!f.getName().endsWith(".java")) return;
-                PsiClass[] classes = f.getClasses();
-                if (classes.length == 0)
-                    return;
-                boolean isRequest = false;
+        transform(files, state, models::add);
+        return models;
+    }
+
+    /**
+     * 每个 controller 在各自的短读锁中解析，解析之间让出读锁给写操作
+     * consumer 按文件顺序在调用线程上执行，不持有读锁
+     *
+     * @param files
+     * @param state
+     * @param consumer 每解析完一个 controller 回调一次
+     */
+    public void transform(List<PsiJavaFile> files, AppSettingState state, Consumer<PostmanModel> consumer) {
+        transformByFile(files, state, (f, model) -> consumer.accept(model));
+    }
+
+    /**
+     * @param files
+     * @param state
+     * @param consumer 每解析完一个 controller 回调一次，同时传入所在的文件
+     */
+    public void transformByFile(List<PsiJavaFile> files, AppSettingState state, BiConsumer<PsiJavaFile, PostmanModel> consumer) {
+        if (state.isParallelTransform() && files.size() > 1 && !ApplicationManager.getApplication().isDispatchThread()) {
+            transformParallel(files, state, consumer);
+            return;
+        }
+        for (PsiJavaFile f : files) {
+            ProgressManager.checkCanceled();
+            PostmanModel model = ReadAction.compute(() -> transform(f, state));
+            if (model != null) {
+                consumer.accept(f, model);
+            }
+        }
+    }
 
-                //从注解里面找 RestController 和 RequestMapping 来确定请求头和 basepath
-                PsiModifierList controllerModi = PsiTreeUtil.findChildOfType(controllerClass, PsiModifierList.class);
-                if (controllerModi != null) {
-                    Collection<PsiAnnotation> annotations = PsiTreeUtil.findChildrenOfType(controllerModi, PsiAnnotation.class);
-                    if (annotations.size() > 0) {
-                        Map<String, Boolean> r = FieldUtil.existRequetAnnotation(annotations);
-                        if (r.get("rest") || r.get("general")) {
-                            isRequest = true;
-                        }
+    /**
+     * controller 分发到有界线程池并行解析，非阻塞读锁遇到写操作会被取消并自动重试，结果按文件顺序合并
+     * 最多提前解析 parallelism * 2 个 controller，内存占用不随文件数增长
+     *
+     * @param files
+     * @param state
+     * @param consumer
+     */
+    private void transformParallel(List<PsiJavaFile> files, AppSettingState state, BiConsumer<PsiJavaFile, PostmanModel> consumer) {
+        Project project = files.get(0).getProject();
+        ProgressIndicator indicator = ProgressManager.getGlobalProgressIndicator();
+        Deque<CancellablePromise<PostmanModel>> pending = new ArrayDeque<>();
+        Deque<PsiJavaFile> pendingFiles = new ArrayDeque<>();
+        Iterator<PsiJavaFile> iterator = files.iterator();
+        try {
+            while (iterator.hasNext() || !pending.isEmpty()) {
+                while (iterator.hasNext() && pending.size() < parallelism * 2) {
+                    PsiJavaFile f = iterator.next();
+                    NonBlockingReadAction<PostmanModel> action = ReadAction.nonBlocking(() -> transform(f, state)).expireWith(project);
+                    if (indicator != null) {
+                        action = action.wrapProgress(indicator);
                     }
+                    pending.add(action.submit(transformExecutor));
+                    pendingFiles.add(f);
                 }
-                if (!isRequest) {
-                    return;
+                PostmanModel model = ProgressUtil.await(pending.poll());
+                PsiJavaFile f = pendingFiles.poll();
+                if (model != null) {
+                    consumer.accept(f, model);
                 }
+            }
+        } finally {
+            pending.forEach(p -> p.cancel(false));
+        }
+    }
 
-                model.setName(FieldUtil.getJavaDocName(f.getClasses()[0], state, true));
-                model.setDescription(model.getName());
-                List<PostmanModel.ItemBean> itemBeans = new LinkedList<>();
-                Collection<PsiMethod> methodCollection = PsiTreeUtil.findChildrenOfType(controllerClass, PsiMethod.class);
-                Iterator<PsiMethod> methodIterator = methodCollection.iterator();
-                while (methodIterator.hasNext()) {
-                    PostmanModel.ItemBean itemBean = new RequestWrapper(methodIterator.next(), controllerClass).toItemBean();
-                    if (itemBean != null) {
-                        itemBeans.add(itemBean);
-                    }
+    /**
+     * 同一份配置的解析结果缓存在文件上，controller 文件、引用到的类所在文件或 java 结构变化后才重新解析
+     * 缓存的结果会被多次导出共享，调用方不能修改
+     *
+     * @param f
+     * @param state
+     * @return
+     */
+    private PostmanModel transform(PsiJavaFile f, AppSettingState state) {
+        if (!f.isValid()) {
+            return null;
+        }
+        if (!state.isModelCache()) {
+            return transform(f, state, new HashSet<>());
+        }
+        return CachedValuesManager.getManager(f.getProject()).getCachedValue(f, getCacheKey(state), () -> {
+            Set<PsiClass> referencedClasses = new HashSet<>();
+            PostmanModel model = transform(f, state, referencedClasses);
+            return CachedValueProvider.Result.create(model, dependencies(f, referencedClasses));
+        }, false);
+    }
+
+    private static Key<CachedValue<PostmanModel>> getCacheKey(AppSettingState state) {
+        return cacheKeys.computeIfAbsent(state.exportSignature(), signature -> Key.create("MeterSphere.PostmanModel." + signature));
+    }
+
+    private static Object[] dependencies(PsiJavaFile f, Set<PsiClass> referencedClasses) {
+        List<Object> dependencies = new ArrayList<>();
+        dependencies.add(f);
+        dependencies.add(PsiModificationTracker.SERVICE.getInstance(f.getProject()).getJavaStructureModificationTracker());
+        //依赖库变化
+        dependencies.add(ProjectRootModificationTracker.getInstance(f.getProject()));
+        for (PsiClass psiClass : referencedClasses) {
+            PsiFile file = psiClass.getContainingFile();
+            if (file != null && !(file instanceof PsiCompiledElement)) {
+                dependencies.add(file);
+            }
+        }
+        return dependencies.toArray();
+    }
+
+    /**
+     * @param f
+     * @param state
+     * @param referencedClasses 收集请求参数和返回值中引用到的类
+     * @return
+     */
+    private PostmanModel transform(PsiJavaFile f, AppSettingState state, Set<PsiClass> referencedClasses) {
+        PsiClass controllerClass = PsiTreeUtil.findChildOfType(f, PsiClass.class);
+        if (controllerClass == null) {
+            return null;
+        }
+        EndpointIndex endpointIndex = state.isModelCache() ? EndpointIndex.getInstance(f.getProject()) : null;
+        String signature = state.exportSignature();
+        //内存索引可用时按接口复用，不再读取磁盘缓存和计算依赖的摘要
+        if (state.isPersistentCache() && (endpointIndex == null || endpointIndex.claimDiskLoad(controllerClass, signature))) {
+            PostmanModel cached = ModelDiskCache.load(f, state, referencedClasses);
+            if (cached != null) {
+                return cached;
+            }
+            referencedClasses.clear();
+        }
+        logger.info(f.getName() + "...........");
+        PostmanModel model = new PostmanModel();
+        if (!f.getName().endsWith(".java")) return null;
+        PsiClass[] classes = f.getClasses();
+        if (classes.length == 0)
+            return null;
+        boolean isRequest = false;
+
+        //从注解里面找 RestController 和 RequestMapping 来确定请求头和 basepath
+        PsiModifierList controllerModi = PsiTreeUtil.findChildOfType(controllerClass, PsiModifierList.class);
+        if (controllerModi != null) {
+            Collection<PsiAnnotation> annotations = PsiTreeUtil.findChildrenOfType(controllerModi, PsiAnnotation.class);
+            if (annotations.size() > 0) {
+                Map<String, Boolean> r = FieldUtil.existRequetAnnotation(annotations);
+                if (r.get("rest") || r.get("general")) {
+                    isRequest = true;
                 }
-                model.setItem(itemBeans);
-                if (isRequest) {
-                    models.add(model);
+            }
+        }
+        if (!isRequest) {
+            return null;
+        }
+
+        model.setName(FieldUtil.getJavaDocName(f.getClasses()[0], state, true));
+        model.setDescription(model.getName());
+        List<PostmanModel.ItemBean> itemBeans = new LinkedList<>();
+        Collection<PsiMethod> methodCollection = PsiTreeUtil.findChildrenOfType(controllerClass, PsiMethod.class);
+        Iterator<PsiMethod> methodIterator = methodCollection.iterator();
+        while (methodIterator.hasNext()) {
+            PsiMethod method = methodIterator.next();
+            String key = EndpointIndex.key(controllerClass, method);
+            //引用的类都没有变化的接口直接复用
+            EndpointIndex.Endpoint endpoint = endpointIndex != null ? endpointIndex.get(key, signature) : null;
+            if (endpoint != null) {
+                if (endpoint.getItem() != null) {
+                    itemBeans.add(endpoint.getItem());
+                    referencedClasses.addAll(endpoint.getReferencedClasses());
                 }
+                continue;
             }
-        });
-        return models;
+            RequestWrapper requestWrapper = new RequestWrapper(method, controllerClass);
+            PostmanModel.ItemBean itemBean = requestWrapper.toItemBean();
+            Set<PsiClass> methodClasses = itemBean != null ? requestWrapper.getReferencedClasses() : Collections.emptySet();
+            if (endpointIndex != null) {
+                endpointIndex.put(key, signature, itemBean, methodClasses, controllerClass);
+            }
+            if (itemBean != null) {
+                itemBeans.add(itemBean);
+                referencedClasses.addAll(methodClasses);
+            }
+        }
+        model.setItem(itemBeans);
+        if (state.isPersistentCache()) {
+            ModelDiskCache.save(f, state, model, referencedClasses);
+        }
+        return model;
     }
 
 }
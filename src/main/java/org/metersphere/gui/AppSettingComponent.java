@@ -3,14 +3,18 @@ package org.metersphere.gui;
 import com.alibaba.fastjson.JSONObject;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.ui.Messages;
 import lombok.Data;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.metersphere.AppSettingService;
 import org.metersphere.constants.MSApiConstants;
 import org.metersphere.state.*;
 import org.metersphere.utils.MSApiUtil;
+import org.metersphere.utils.MSMetadataCache;
 
 import javax.swing.*;
 import java.awt.event.ItemEvent;
@@ -19,11 +23,11 @@ import java.awt.event.KeyEvent;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.metersphere.utils.CollectionUtils;
 
-import static org.metersphere.utils.MSApiUtil.test;
-
 @Data
 public class AppSettingComponent {
 
@@ -45,24 +49,48 @@ public class AppSettingComponent {
     private JComboBox workspaceCB;
     private JComboBox updateVersionCB;
     private JCheckBox coverModule;
+    private JCheckBox indexDiscoveryCheckBox;
+    private JCheckBox parallelTransformCheckBox;
+    private JCheckBox streamingUploadCheckBox;
+    private JCheckBox batchUploadCheckBox;
+    private JCheckBox incrementalSyncCheckBox;
+    private JCheckBox persistentCacheCheckBox;
+    private JCheckBox modelCacheCheckBox;
+    private JCheckBox withOriginalRequestCheckBox;
+    private JCheckBox json5ExampleCheckBox;
+    private JTextField connectTimeoutField;
+    private JTextField socketTimeoutField;
+    private JTextField connectionRequestTimeoutField;
+    private JTextField metadataCacheTtlField;
+    private JTextField connectionCheckTtlField;
+    private JTextField uploadRetriesField;
+    private JTextField retryBaseDelayField;
+    private JTextField batchMaxControllersField;
+    private JTextField batchMaxBytesField;
+    private JTextField batchConcurrencyField;
     private AppSettingService appSettingService = AppSettingService.getInstance();
     private Gson gson = new Gson();
     private Logger logger = Logger.getInstance(AppSettingComponent.class);
+    //进行中的后台请求数，只在 EDT 上读写
+    private int loadingCount;
+    private String testConText;
 
     public AppSettingComponent() {
         AppSettingState appSettingState = appSettingService.getState();
 
         initData(appSettingState);
+        testConText = testCon.getText();
 
         testCon.addActionListener(actionEvent -> {
-            if (test(appSettingState)) {
-                if (initWorkSpaceWithProject())
-                    Messages.showInfoMessage("sync success!", "Info");
-                else
-                    Messages.showInfoMessage("sync fail!", "Info");
-            } else {
-                Messages.showInfoMessage("connect fail!", "Info");
-            }
+            //手动同步时丢弃缓存，重新从服务端获取
+            MSMetadataCache.invalidate();
+            loadInBackground(MSApiUtil.testAsync(appSettingState), success -> {
+                if (Objects.equals(true, success)) {
+                    initWorkSpaceWithProject();
+                } else {
+                    Messages.showInfoMessage("connect fail!", "Info");
+                }
+            });
         });
 
         meterSphereAddress.addKeyListener(new KeyAdapter() {
@@ -100,11 +128,7 @@ public class AppSettingComponent {
             if (itemEvent.getStateChange() == ItemEvent.SELECTED) {
                 if (projectCB.getSelectedItem() != null) {
                     appSettingState.setProject((MSProject) projectCB.getSelectedItem());
-                    MSProject selectedProject = (MSProject) itemEvent.getItem();
-                    initModule(selectedProject.getId());
-                    if (Objects.equals(true, selectedProject.getVersionEnable())) {
-                        mutationProjectVersions(selectedProject.getId());
-                    }
+                    initModule((MSProject) itemEvent.getItem());
                 }
             }
         });
@@ -139,11 +163,14 @@ public class AppSettingComponent {
                 //不覆盖的时候，覆盖路径也设置为 false
                 coverModule.setSelected(false);
                 coverModule.setEnabled(false);
+                //增量导出只支持覆盖模式
+                incrementalSyncCheckBox.setEnabled(false);
             } else {
                 updateVersionCB.setEnabled(true);
                 projectVersionCB.setEnabled(true);
                 //覆盖模块设置为启用
                 coverModule.setEnabled(true);
+                incrementalSyncCheckBox.setEnabled(true);
                 if (CollectionUtils.isNotEmpty(appSettingState.getUpdateVersionOptions())) {
                     updateVersionCB.setSelectedItem(appSettingState.getUpdateVersionOptions().get(0));
                 }
@@ -167,6 +194,27 @@ public class AppSettingComponent {
             }
         });
         javadocCheckBox.addActionListener((actionEvent) -> appSettingState.setJavadoc(javadocCheckBox.isSelected()));
+
+        //高级设置
+        indexDiscoveryCheckBox.addActionListener(actionEvent -> appSettingState.setIndexDiscovery(indexDiscoveryCheckBox.isSelected()));
+        parallelTransformCheckBox.addActionListener(actionEvent -> appSettingState.setParallelTransform(parallelTransformCheckBox.isSelected()));
+        streamingUploadCheckBox.addActionListener(actionEvent -> appSettingState.setStreamingUpload(streamingUploadCheckBox.isSelected()));
+        batchUploadCheckBox.addActionListener(actionEvent -> appSettingState.setBatchUpload(batchUploadCheckBox.isSelected()));
+        incrementalSyncCheckBox.addActionListener(actionEvent -> appSettingState.setIncrementalSync(incrementalSyncCheckBox.isSelected()));
+        persistentCacheCheckBox.addActionListener(actionEvent -> appSettingState.setPersistentCache(persistentCacheCheckBox.isSelected()));
+        modelCacheCheckBox.addActionListener(actionEvent -> appSettingState.setModelCache(modelCacheCheckBox.isSelected()));
+        withOriginalRequestCheckBox.addActionListener(actionEvent -> appSettingState.setWithOriginalRequest(withOriginalRequestCheckBox.isSelected()));
+        json5ExampleCheckBox.addActionListener(actionEvent -> appSettingState.setJson5Example(json5ExampleCheckBox.isSelected()));
+        bindNumber(connectTimeoutField, text -> appSettingState.setConnectTimeout(NumberUtils.toInt(text, appSettingState.getConnectTimeout())));
+        bindNumber(socketTimeoutField, text -> appSettingState.setSocketTimeout(NumberUtils.toInt(text, appSettingState.getSocketTimeout())));
+        bindNumber(connectionRequestTimeoutField, text -> appSettingState.setConnectionRequestTimeout(NumberUtils.toInt(text, appSettingState.getConnectionRequestTimeout())));
+        bindNumber(metadataCacheTtlField, text -> appSettingState.setMetadataCacheTtl(NumberUtils.toInt(text, appSettingState.getMetadataCacheTtl())));
+        bindNumber(connectionCheckTtlField, text -> appSettingState.setConnectionCheckTtl(NumberUtils.toInt(text, appSettingState.getConnectionCheckTtl())));
+        bindNumber(uploadRetriesField, text -> appSettingState.setUploadRetries(NumberUtils.toInt(text, appSettingState.getUploadRetries())));
+        bindNumber(retryBaseDelayField, text -> appSettingState.setRetryBaseDelay(NumberUtils.toLong(text, appSettingState.getRetryBaseDelay())));
+        bindNumber(batchMaxControllersField, text -> appSettingState.setBatchMaxControllers(NumberUtils.toInt(text, appSettingState.getBatchMaxControllers())));
+        bindNumber(batchMaxBytesField, text -> appSettingState.setBatchMaxBytes(NumberUtils.toLong(text, appSettingState.getBatchMaxBytes())));
+        bindNumber(batchConcurrencyField, text -> appSettingState.setBatchConcurrency(NumberUtils.toInt(text, appSettingState.getBatchConcurrency())));
     }
 
     private void initData(AppSettingState appSettingState) {
@@ -235,44 +283,106 @@ public class AppSettingComponent {
         }
         javadocCheckBox.setSelected(appSettingState.isJavadoc());
         coverModule.setSelected(appSettingState.isCoverModule());
+
+        indexDiscoveryCheckBox.setSelected(appSettingState.isIndexDiscovery());
+        parallelTransformCheckBox.setSelected(appSettingState.isParallelTransform());
+        streamingUploadCheckBox.setSelected(appSettingState.isStreamingUpload());
+        batchUploadCheckBox.setSelected(appSettingState.isBatchUpload());
+        incrementalSyncCheckBox.setSelected(appSettingState.isIncrementalSync());
+        incrementalSyncCheckBox.setEnabled(MSApiUtil.getModeId(appSettingState.getModeId()).equalsIgnoreCase(MSApiConstants.MODE_FULLCOVERAGE));
+        persistentCacheCheckBox.setSelected(appSettingState.isPersistentCache());
+        modelCacheCheckBox.setSelected(appSettingState.isModelCache());
+        withOriginalRequestCheckBox.setSelected(appSettingState.isWithOriginalRequest());
+        json5ExampleCheckBox.setSelected(appSettingState.isJson5Example());
+        connectTimeoutField.setText(String.valueOf(appSettingState.getConnectTimeout()));
+        socketTimeoutField.setText(String.valueOf(appSettingState.getSocketTimeout()));
+        connectionRequestTimeoutField.setText(String.valueOf(appSettingState.getConnectionRequestTimeout()));
+        metadataCacheTtlField.setText(String.valueOf(appSettingState.getMetadataCacheTtl()));
+        connectionCheckTtlField.setText(String.valueOf(appSettingState.getConnectionCheckTtl()));
+        uploadRetriesField.setText(String.valueOf(appSettingState.getUploadRetries()));
+        retryBaseDelayField.setText(String.valueOf(appSettingState.getRetryBaseDelay()));
+        batchMaxControllersField.setText(String.valueOf(appSettingState.getBatchMaxControllers()));
+        batchMaxBytesField.setText(String.valueOf(appSettingState.getBatchMaxBytes()));
+        batchConcurrencyField.setText(String.valueOf(appSettingState.getBatchConcurrency()));
+    }
+
+    /**
+     * 数值输入框，输入不是数字时保留原值
+     */
+    private static void bindNumber(JTextField field, Consumer<String> setter) {
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyReleased(KeyEvent e) {
+                setter.accept(field.getText().trim());
+            }
+        });
+    }
+
+    /**
+     * 在后台执行请求，结果回到 EDT 上处理，请求期间面板处于加载状态
+     * 请求失败时 onLoaded 收到 null
+     */
+    private <T> void loadInBackground(CompletableFuture<T> future, Consumer<T> onLoaded) {
+        setLoading(true);
+        future.whenComplete((result, e) -> ApplicationManager.getApplication().invokeLater(() -> {
+            setLoading(false);
+            if (e != null) {
+                logger.error("sync with MeterSphere failed!", e);
+            }
+            onLoaded.accept(e == null ? result : null);
+        }, ModalityState.stateForComponent(mainSettingPanel)));
+    }
+
+    private void setLoading(boolean loading) {
+        loadingCount += loading ? 1 : -1;
+        boolean enabled = loadingCount == 0;
+        testCon.setEnabled(enabled);
+        testCon.setText(enabled ? testConText : "Loading...");
+        workspaceCB.setEnabled(enabled);
+        projectCB.setEnabled(enabled);
+        moduleCB.setEnabled(enabled);
+    }
+
+    private static <T> T resultOf(CompletableFuture<T> future) {
+        return future.isCompletedExceptionally() ? null : future.getNow(null);
     }
 
-    private boolean initProject(AppSettingState appSettingState, String workspaceId) {
+    private void initProject(AppSettingState appSettingState, String workspaceId) {
         //初始化项目
         JSONObject param = new JSONObject();
         param.put("userId", appSettingState.getUserId());
         if (StringUtils.isNotBlank(workspaceId)) {
             param.put("workspaceId", workspaceId);
         }
-        JSONObject project = MSApiUtil.getProjectList(appSettingState, param);
-        if (project != null && project.getBoolean("success")) {
-            appSettingState.setProjectOptions(gson.fromJson(gson.toJson(project.getJSONArray("data")), new TypeToken<List<MSProject>>() {
-            }.getType()));
-        } else {
-            logger.error("get project failed!");
-            return false;
-        }
-        //设置下拉选择框
-        this.projectCB.removeAllItems();
-        for (MSProject s : appSettingState.getProjectOptions()) {
-            this.projectCB.addItem(s);
-        }
-        if (CollectionUtils.isNotEmpty(appSettingState.getProjectOptions())) {
-            checkVersionEnable(appSettingState, appSettingState.getProjectOptions().get(0).getId());
-        }
-        if (CollectionUtils.isEmpty(appSettingState.getProjectOptions())) {
-            this.moduleCB.removeAllItems();
-            appSettingState.setModule(null);
-            this.projectVersionCB.removeAllItems();
-            this.updateVersionCB.removeAllItems();
-            appSettingState.setProjectVersion(null);
-            appSettingState.setUpdateVersion(null);
-        }
-        return true;
+        loadInBackground(MSMetadataCache.getProjectList(appSettingState, param), project -> {
+            //已经切换到其他工作空间，丢弃过期的结果
+            if (appSettingState.getWorkSpace() != null && !StringUtils.equals(workspaceId, appSettingState.getWorkSpace().getId())) {
+                return;
+            }
+            if (project != null && project.getBoolean("success")) {
+                appSettingState.setProjectOptions(gson.fromJson(gson.toJson(project.getJSONArray("data")), new TypeToken<List<MSProject>>() {
+                }.getType()));
+            } else {
+                logger.error("get project failed!");
+                return;
+            }
+            //设置下拉选择框，选中第一个项目时由 projectCB 的监听加载模块和版本
+            this.projectCB.removeAllItems();
+            for (MSProject s : appSettingState.getProjectOptions()) {
+                this.projectCB.addItem(s);
+            }
+            if (CollectionUtils.isEmpty(appSettingState.getProjectOptions())) {
+                this.moduleCB.removeAllItems();
+                appSettingState.setModule(null);
+                this.projectVersionCB.removeAllItems();
+                this.updateVersionCB.removeAllItems();
+                appSettingState.setProjectVersion(null);
+                appSettingState.setUpdateVersion(null);
+            }
+        });
     }
 
-    private void checkVersionEnable(AppSettingState appSettingState, String projectId) {
-        boolean versionEnable = MSApiUtil.getProjectVersionEnable(appSettingState, projectId);
+    private void checkVersionEnable(AppSettingState appSettingState, boolean versionEnable) {
         appSettingState.setSupportVersion(versionEnable);
         if (!versionEnable) {
             projectVersionCB.setEnabled(false);
@@ -288,12 +398,11 @@ public class AppSettingComponent {
     /**
      * 改变项目版本下拉列表的状态值
      */
-    private void mutationProjectVersions(String projectId) {
+    private void mutationProjectVersions(JSONObject jsonObject) {
         AppSettingState appSettingState = appSettingService.getState();
         if (appSettingState == null) {
             return;
         }
-        JSONObject jsonObject = MSApiUtil.listProjectVersionBy(projectId, appSettingState);
         if (jsonObject != null && jsonObject.getBoolean("success")) {
             String json = gson.toJson(jsonObject.getJSONArray("data"));
             List<MSProjectVersion> versionList = gson.fromJson(json, new TypeToken<List<MSProjectVersion>>() {
@@ -321,57 +430,71 @@ public class AppSettingComponent {
         }
     }
 
-    private boolean initWorkSpaceWithProject() {
+    private void initWorkSpaceWithProject() {
         AppSettingState appSettingState = appSettingService.getState();
 
-        JSONObject userInfo = MSApiUtil.getUserInfo(appSettingState);
-        appSettingState.setUserId(userInfo.getString("data"));
-
-        JSONObject workspaceObj = MSApiUtil.getWorkSpaceList(appSettingState, userInfo.getString("data"));
-        if (workspaceObj != null && workspaceObj.getBoolean("success")) {
-            appSettingState.setWorkSpaceOptions(gson.fromJson(gson.toJson(workspaceObj.getJSONArray("data")), new TypeToken<List<MSWorkSpace>>() {
-            }.getType()));
-        } else {
-            logger.error("get workspace failed!");
-            return false;
-        }
-        this.workspaceCB.removeAllItems();
-        for (MSWorkSpace s : appSettingState.getWorkSpaceOptions()) {
-            this.workspaceCB.addItem(s);
-        }
-
-        if (CollectionUtils.isNotEmpty(appSettingState.getWorkSpaceOptions())) {
-            initProject(appSettingState, appSettingState.getWorkSpaceOptions().get(0).getId());
-        }
-
-        return true;
+        CompletableFuture<JSONObject> workspaces = MSMetadataCache.getUserInfo(appSettingState).thenCompose(userInfo -> {
+            if (userInfo == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            appSettingState.setUserId(userInfo.getString("data"));
+            return MSMetadataCache.getWorkSpaceList(appSettingState, userInfo.getString("data"));
+        });
+        loadInBackground(workspaces, workspaceObj -> {
+            if (workspaceObj != null && workspaceObj.getBoolean("success")) {
+                appSettingState.setWorkSpaceOptions(gson.fromJson(gson.toJson(workspaceObj.getJSONArray("data")), new TypeToken<List<MSWorkSpace>>() {
+                }.getType()));
+            } else {
+                logger.error("get workspace failed!");
+                Messages.showInfoMessage("sync fail!", "Info");
+                return;
+            }
+            //选中第一个工作空间时由 workspaceCB 的监听加载项目
+            this.workspaceCB.removeAllItems();
+            for (MSWorkSpace s : appSettingState.getWorkSpaceOptions()) {
+                this.workspaceCB.addItem(s);
+            }
+            Messages.showInfoMessage("sync success!", "Info");
+        });
     }
 
     /**
-     * ms 项目id
+     * 并行加载项目的模块、版本开关和版本列表
      *
-     * @param msProjectId
+     * @param msProject ms 项目
      */
-    private boolean initModule(String msProjectId) {
+    private void initModule(MSProject msProject) {
         AppSettingState appSettingState = appSettingService.getState();
+        String msProjectId = msProject.getId();
+        boolean loadVersions = Objects.equals(true, msProject.getVersionEnable());
 
-        checkVersionEnable(appSettingState, msProjectId);
-        //初始化模块
-        JSONObject module = MSApiUtil.getModuleList(appSettingState, msProjectId, appSettingState.getApiType());
+        CompletableFuture<Boolean> versionEnable = MSMetadataCache.getProjectVersionEnable(appSettingState, msProjectId);
+        CompletableFuture<JSONObject> module = MSMetadataCache.getModuleList(appSettingState, msProjectId, appSettingState.getApiType());
+        CompletableFuture<JSONObject> versions = loadVersions ? MSMetadataCache.listProjectVersionBy(msProjectId, appSettingState) : CompletableFuture.completedFuture(null);
 
-        if (module != null && module.getBoolean("success")) {
-            appSettingState.setModuleOptions(gson.fromJson(gson.toJson(module.getJSONArray("data")), new TypeToken<List<MSModule>>() {
-            }.getType()));
-        } else {
-            logger.error("get module failed!");
-            return false;
-        }
+        loadInBackground(CompletableFuture.allOf(versionEnable, module, versions), ignored -> {
+            //已经切换到其他项目，丢弃过期的结果
+            if (appSettingState.getProject() == null || !StringUtils.equals(msProjectId, appSettingState.getProject().getId())) {
+                return;
+            }
+            checkVersionEnable(appSettingState, Objects.equals(true, resultOf(versionEnable)));
+            if (loadVersions) {
+                mutationProjectVersions(resultOf(versions));
+            }
+            JSONObject moduleObj = resultOf(module);
+            if (moduleObj != null && moduleObj.getBoolean("success")) {
+                appSettingState.setModuleOptions(gson.fromJson(gson.toJson(moduleObj.getJSONArray("data")), new TypeToken<List<MSModule>>() {
+                }.getType()));
+            } else {
+                logger.error("get module failed!");
+                return;
+            }
 
-        this.moduleCB.removeAllItems();
-        for (MSModule s : appSettingState.getModuleOptions()) {
-            this.moduleCB.addItem(s);
-        }
-        return true;
+            this.moduleCB.removeAllItems();
+            for (MSModule s : appSettingState.getModuleOptions()) {
+                this.moduleCB.addItem(s);
+            }
+        });
     }
 
     public JPanel getSettingPanel() {
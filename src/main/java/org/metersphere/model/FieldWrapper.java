@@ -2,16 +2,16 @@ package org.metersphere.model;
 
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.psi.*;
-import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiUtil;
+import com.intellij.psi.util.TypeConversionUtil;
 import lombok.Data;
-import org.apache.commons.collections.MapUtils;
-import org.apache.commons.lang.StringUtils;
 import org.metersphere.AppSettingService;
 import org.metersphere.constants.ExcludeFieldConstants;
 import org.metersphere.constants.JavaTypeEnum;
+import org.metersphere.exporter.ExportSession;
 import org.metersphere.state.AppSettingState;
 import org.metersphere.utils.FieldUtil;
+import org.metersphere.utils.TypeClassifier;
 
 import java.util.*;
 
@@ -34,8 +34,8 @@ public class FieldWrapper {
     //该参数的子类
     private List<FieldWrapper> children = new LinkedList<>();
 
-    //泛型名称与实际类型对应关系
-    private Map<PsiTypeParameter, PsiType> genericTypeMap;
+    //当前类型的泛型绑定，字段类型经过它替换后传给子节点，子节点的类型都是实际类型
+    private PsiSubstitutor substitutor = PsiSubstitutor.EMPTY;
 
     //代码生成配置
     private AppSettingState appSettingState;
@@ -43,8 +43,17 @@ public class FieldWrapper {
     //字段注释
     private String desc;
 
-    //记录一个属性被解析的次数 防止链表无限解析
-    public static ThreadLocal<Map<String, Integer>> fieldResolveCountMap = new ThreadLocal<>();
+    //从根节点到当前节点的路径长度
+    private int pathDepth;
+
+    //循环引用时指向的祖先类型，该节点不再展开
+    private String referenceType;
+
+    //子树中循环引用指向的最浅祖先的路径长度，小于 pathDepth 时子树依赖于当前路径，不能共享
+    private int cycleDepth = Integer.MAX_VALUE;
+
+    //子树中出现的对象类型，共享的子树不能接到路径上已有这些类型的节点下
+    private Set<String> subtreeTypes = Collections.emptySet();
 
     public FieldWrapper() {
 
@@ -63,7 +72,8 @@ public class FieldWrapper {
         }
         this.appSettingState = ApplicationManager.getApplication().getService(AppSettingService.class).getState();
         this.parent = parent;
-        this.genericTypeMap = resolveGenerics(this.psiType);
+        this.pathDepth = parent == null ? 0 : parent.pathDepth + 1;
+        this.substitutor = resolveSubstitutor(this.psiType);
         this.desc = FieldUtil.getJavaDocName(PsiUtil.resolveClassInType(this.psiType), appSettingState, false);
         resolveChildren(curDeepth + 1);
     }
@@ -96,127 +106,163 @@ public class FieldWrapper {
         }
         this.appSettingState = ApplicationManager.getApplication().getService(AppSettingService.class).getState();
         this.parent = parent;
-        this.genericTypeMap = resolveGenerics(this.psiType);
+        this.pathDepth = parent == null ? 0 : parent.pathDepth + 1;
+        this.substitutor = resolveSubstitutor(this.psiType);
         this.desc = FieldUtil.getJavaDocName(PsiUtil.resolveClassInType(this.psiType), appSettingState, false);
         resolveChildren(curDeepth + 1);
     }
 
+    private static PsiSubstitutor resolveSubstitutor(PsiType psiType) {
+        if (psiType instanceof PsiClassType) {
+            return ((PsiClassType) psiType).resolveGenerics().getSubstitutor();
+        }
+        return PsiSubstitutor.EMPTY;
+    }
+
     /**
-     * 根据泛型获取对应的PsiType
+     * 父类中声明的字段先把泛型绑定换算到声明字段的类上再替换
      *
-     * @param psiType
+     * @param psiClass 当前类型对应的类
+     * @param psiField
      * @return
      */
-    private PsiType resolveGeneric(PsiType psiType) {
-        if (null == psiType) {
-            return null;
+    private PsiType substituteFieldType(PsiClass psiClass, PsiField psiField) {
+        PsiSubstitutor fieldSubstitutor = substitutor;
+        PsiClass containingClass = psiField.getContainingClass();
+        if (containingClass != null && !containingClass.equals(psiClass)) {
+            fieldSubstitutor = TypeConversionUtil.getSuperClassSubstitutor(containingClass, psiClass, substitutor);
         }
-        Map<PsiTypeParameter, PsiType> map;
-        if (MapUtils.isEmpty(this.genericTypeMap) && this.parent != null) {
-            map = this.parent.genericTypeMap;
-        } else {
-            map = this.genericTypeMap;
+        PsiType fieldType = fieldSubstitutor.substitute(psiField.getType());
+        //原始类型没有绑定时取擦除后的类型
+        return fieldType != null ? fieldType : TypeConversionUtil.erasure(psiField.getType());
+    }
+
+    public void resolveChildren(int curDeepth) {
+        //解析对象深度
+        if (curDeepth > appSettingState.getDeepth()) {
+            return;
         }
-        if (null != map) {
-            for (PsiTypeParameter psiTypeParameter : map.keySet()) {
-                if (Objects.equals(psiTypeParameter.getName(), psiType.getPresentableText())) {
-                    return map.get(psiTypeParameter);
-                }
-            }
+        //当前路径上已经出现过的类型不再展开，折叠为指向祖先的引用
+        FieldWrapper ancestor = findRecursiveAncestor();
+        if (ancestor != null) {
+            referenceType = ancestor.psiType.getCanonicalText();
+            cycleDepth = ancestor.pathDepth;
+            return;
+        }
+        //数组和集合的子树来自元素节点，由元素节点共享
+        if (this.type != JavaTypeEnum.OBJECT) {
+            doResolveChildren(curDeepth);
+            return;
+        }
+        //相同类型、泛型绑定和剩余深度的子树只解析一次，后续直接共享
+        PsiClass psiClass = PsiUtil.resolveClassInType(psiType);
+        ExportSession session = ExportSession.current(psiClass != null ? psiClass.getProject() : null);
+        String subtreeKey = buildSubtreeKey(curDeepth);
+        List<FieldWrapper> cached = session.getSubtree(subtreeKey);
+        //子树中的类型出现在当前路径上时，应在子树内折叠为引用，不能共享
+        if (cached != null && !hasAncestorIn(cached)) {
+            children = cached;
+            cached.forEach(this::addSubtreeTypes);
+            return;
+        }
+        doResolveChildren(curDeepth);
+        if (children != null && cycleDepth >= pathDepth) {
+            session.putSubtree(subtreeKey, children);
         }
-        return psiType;
     }
 
-    private Map<PsiTypeParameter, PsiType> resolveGenerics(PsiType psiType) {
-        if (psiType instanceof PsiArrayType) {
-            return new HashMap<>();
+    private FieldWrapper findRecursiveAncestor() {
+        if (this.type != JavaTypeEnum.OBJECT) {
+            return null;
         }
-        if (fieldResolveCountMap.get() == null) {
-            fieldResolveCountMap.set(new HashMap<>());
+        String typeText = psiType.getCanonicalText();
+        for (FieldWrapper ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor.type == JavaTypeEnum.OBJECT && typeText.equals(ancestor.psiType.getCanonicalText())) {
+                return ancestor;
+            }
         }
-        fieldResolveCountMap.get().put(psiType.getPresentableText(), fieldResolveCountMap.get().get(psiType.getPresentableText()) == null ? 0 : fieldResolveCountMap.get().get(psiType.getPresentableText()) + 1);
+        return null;
+    }
 
-        if (psiType instanceof PsiClassType) {
-            PsiClassType psiClassType = (PsiClassType) psiType;
-            PsiType[] realParameters = psiClassType.getParameters();
-            if (psiClassType.resolve() == null) {
-                return new HashMap<>();
-            }
-            PsiTypeParameter[] formParameters = psiClassType.resolve().getTypeParameters();
-            if (fieldResolveCountMap.get().get(psiType.getPresentableText()) > 10 && realParameters.length > 0) {
-                return new HashMap<>();
+    private boolean hasAncestorIn(List<FieldWrapper> subtree) {
+        Set<String> types = new HashSet<>();
+        for (FieldWrapper child : subtree) {
+            if (child.type == JavaTypeEnum.OBJECT) {
+                types.add(child.psiType.getCanonicalText());
             }
-            int i = 0;
-            Map<PsiTypeParameter, PsiType> map = new HashMap<>();
-            for (PsiType realParameter : realParameters) {
-                map.put(formParameters[i], getRealParameter(realParameter));
-                i++;
+            types.addAll(child.subtreeTypes);
+        }
+        for (FieldWrapper ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor.type == JavaTypeEnum.OBJECT && types.contains(ancestor.psiType.getCanonicalText())) {
+                return true;
             }
-            return map;
         }
-        return new HashMap<>();
+        return false;
+    }
+
+    private void addCycleDepth(FieldWrapper child) {
+        cycleDepth = Math.min(cycleDepth, child.cycleDepth);
+        addSubtreeTypes(child);
+    }
+
+    private void addSubtreeTypes(FieldWrapper child) {
+        if (child.type != JavaTypeEnum.OBJECT && child.subtreeTypes.isEmpty()) {
+            return;
+        }
+        if (subtreeTypes.isEmpty()) {
+            subtreeTypes = new HashSet<>();
+        }
+        if (child.type == JavaTypeEnum.OBJECT) {
+            subtreeTypes.add(child.psiType.getCanonicalText());
+        }
+        subtreeTypes.addAll(child.subtreeTypes);
     }
 
     /**
-     * 多级泛型嵌套可能得到的参数不是真正的参数
+     * 类型已经替换为实际类型，子树只取决于类型和剩余深度
+     * 共享的子节点 parent 指向第一次解析时的节点
      *
-     * @param realParameter
+     * @param curDeepth
      * @return
      */
-    private PsiType getRealParameter(PsiType realParameter) {
-
-        PsiClass realClass = JavaPsiFacade.getInstance(psiType.getResolveScope().getProject()).findClass(realParameter.getCanonicalText(), GlobalSearchScope.allScope(psiType.getResolveScope().getProject()));
-        if (realClass == null && parent != null && MapUtils.isNotEmpty(parent.genericTypeMap)) {
-            for (Map.Entry<PsiTypeParameter, PsiType> entry : parent.genericTypeMap.entrySet()) {
-                if (StringUtils.equalsIgnoreCase(entry.getKey().getName(), realParameter.getPresentableText())) {
-                    return entry.getValue();
-                }
-            }
-        }
-        return realParameter;
+    private String buildSubtreeKey(int curDeepth) {
+        return psiType.getCanonicalText() + '#' + (appSettingState.getDeepth() - curDeepth);
     }
 
-    public void resolveChildren(int curDeepth) {
-        //解析对象深度
-        if (curDeepth > appSettingState.getDeepth()) {
-            return;
-        }
+    private void doResolveChildren(int curDeepth) {
         PsiType psiType = this.psiType;
-        if (FieldUtil.isNormalType(psiType.getPresentableText())) {
+        if (TypeClassifier.isBasic(psiType)) {
             //基础类或基础包装类没有子域
             return;
         }
         //如果是数组
         if (psiType instanceof PsiArrayType) {
             PsiType componentType = ((PsiArrayType) psiType).getComponentType();
-            if (FieldUtil.isNormalType(componentType.getPresentableText()) || FieldUtil.isMapType(componentType)) {
+            if (TypeClassifier.isBasic(componentType) || FieldUtil.isMapType(componentType)) {
                 return;
             }
             FieldWrapper fieldInfo = new FieldWrapper(componentType, this, curDeepth + 1);
+            addCycleDepth(fieldInfo);
             children = fieldInfo.children;
             return;
         }
         if (psiType instanceof PsiClassType) {
             //如果是集合类型
             if (FieldUtil.isCollectionType(psiType)) {
-                PsiType iterableType = getRealParameter(PsiUtil.extractIterableTypeParameter(psiType, false));
-                if (iterableType == null || FieldUtil.isNormalType(iterableType.getPresentableText()) || FieldUtil.isMapType(iterableType)) {
+                PsiType iterableType = PsiUtil.extractIterableTypeParameter(psiType, false);
+                if (iterableType == null || TypeClassifier.isBasic(iterableType) || FieldUtil.isMapType(iterableType)) {
                     return;
                 }
-                //兼容泛型
-                PsiType realType = resolveGeneric(iterableType);
-                FieldWrapper fieldInfo = new FieldWrapper("collection", realType, this, curDeepth + 1);
+                FieldWrapper fieldInfo = new FieldWrapper("collection", iterableType, this, curDeepth + 1);
+                addCycleDepth(fieldInfo);
                 children = fieldInfo.children;
                 return;
             }
-            String typeName = psiType.getPresentableText();
-            if (typeName.startsWith("Map")) {
+            if (FieldUtil.isMapType(psiType)) {
                 children = null;
                 return;
             }
-            //兼容泛型
-            PsiType realType = resolveGeneric(psiType);
-            PsiClass psiClass = PsiUtil.resolveClassInType(realType);
+            PsiClass psiClass = ((PsiClassType) psiType).resolve();
             if (psiClass == null) {
                 return;
             }
@@ -230,10 +276,9 @@ public class FieldWrapper {
                 if (FieldUtil.isIgnoredField(psiField)) {
                     continue;
                 }
-                PsiType fieldType = psiField.getType();
-                //兼容泛型
-                PsiType realFieldType = resolveGeneric(fieldType);
+                PsiType realFieldType = substituteFieldType(psiClass, psiField);
                 FieldWrapper fieldInfo = new FieldWrapper(psiField, realFieldType, this, curDeepth + 1);
+                addCycleDepth(fieldInfo);
                 children.add(fieldInfo);
             }
         }
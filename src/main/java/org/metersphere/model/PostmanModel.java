@@ -8,6 +8,7 @@ import java.util.List;
 
 @Data
 public class PostmanModel implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private String name;
     private String description;
@@ -15,6 +16,7 @@ public class PostmanModel implements Serializable {
 
     @Data
     public static class ItemBean implements Serializable {
+        private static final long serialVersionUID = 1L;
 
         private RequestBean request;
         private String name;
@@ -22,6 +24,7 @@ public class PostmanModel implements Serializable {
 
         @Data
         public static class RequestBean implements Serializable {
+            private static final long serialVersionUID = 1L;
 
             private String method;
             private BodyBean body;
@@ -30,6 +33,7 @@ public class PostmanModel implements Serializable {
 
             @Data
             public static class BodyBean implements Serializable {
+                private static final long serialVersionUID = 1L;
 
                 private String mode;
                 private OptionsBean options;
@@ -41,6 +45,7 @@ public class PostmanModel implements Serializable {
                 @Data
                 @AllArgsConstructor
                 public static class FormDataBean implements Serializable {
+                    private static final long serialVersionUID = 1L;
                     private String key;
                     private String type;
                     private Object value;
@@ -49,11 +54,13 @@ public class PostmanModel implements Serializable {
 
                 @Data
                 public static class OptionsBean implements Serializable {
+                    private static final long serialVersionUID = 1L;
 
                     private RawBean raw;
 
                     @Data
                     public static class RawBean implements Serializable {
+                        private static final long serialVersionUID = 1L;
 
                         private String language;
                     }
@@ -62,6 +69,7 @@ public class PostmanModel implements Serializable {
 
             @Data
             public static class UrlBean implements Serializable {
+                private static final long serialVersionUID = 1L;
 
                 private String host;
                 private String raw;
@@ -72,6 +80,7 @@ public class PostmanModel implements Serializable {
 
             @Data
             public static class HeaderBean implements Serializable {
+                private static final long serialVersionUID = 1L;
 
                 private String key;
                 private String value;
@@ -82,6 +91,7 @@ public class PostmanModel implements Serializable {
 
         @Data
         public static class ResponseBean implements Serializable {
+            private static final long serialVersionUID = 1L;
 
             private OriginalRequestBean originalRequest;
             private String _postman_previewlanguage;
@@ -95,55 +105,31 @@ public class PostmanModel implements Serializable {
             private String jsonSchema;
             private List<HeaderBeanXX> header;
 
+            /**
+             * url、header 等直接引用请求中的对象，body 只保留 raw 不带 schema
+             */
             @Data
             public static class OriginalRequestBean implements Serializable {
+                private static final long serialVersionUID = 1L;
 
                 private String method;
                 private BodyBeanX body;
-                private UrlBeanX url;
-                private List<HeaderBeanX> header;
+                private RequestBean.UrlBean url;
+                private List<RequestBean.HeaderBean> header;
 
                 @Data
                 public static class BodyBeanX implements Serializable {
+                    private static final long serialVersionUID = 1L;
 
                     private String mode;
-                    private OptionsBeanX options;
+                    private RequestBean.BodyBean.OptionsBean options;
                     private String raw;
-
-                    @Data
-                    public static class OptionsBeanX implements Serializable {
-
-                        private RawBeanX raw;
-
-                        @Data
-                        public static class RawBeanX implements Serializable {
-
-                            private String language;
-                        }
-                    }
-                }
-
-                @Data
-                public static class UrlBeanX implements Serializable {
-                    private String host;
-                    private String raw;
-                    private List<String> path;
-                    private List<?> query;
-                    private List<?> variable;
-                }
-
-                @Data
-                public static class HeaderBeanX implements Serializable {
-
-                    private String key;
-                    private String value;
-                    private String type;
-                    private String description;
                 }
             }
 
             @Data
             public static class HeaderBeanXX implements Serializable {
+                private static final long serialVersionUID = 1L;
 
                 private String name;
                 private String key;
@@ -1,17 +1,14 @@
 package org.metersphere.model;
 
 import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.psi.*;
 import com.intellij.psi.util.PsiTreeUtil;
 import de.plushnikov.intellij.lombok.util.PsiAnnotationUtil;
 import lombok.Data;
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.metersphere.AppSettingService;
-import org.metersphere.constants.JavaTypeEnum;
 import org.metersphere.constants.WebAnnotation;
 import org.metersphere.state.AppSettingState;
 import org.metersphere.utils.*;
@@ -165,38 +162,17 @@ public class RequestWrapper {
             bodyBean.setMode("raw");
             Optional<FieldWrapper> bodyFieldOp = getRequestBodyParam(this.getRequestFieldList());
             if (bodyFieldOp.isPresent()) {
-                bodyBean.setRaw(JsonUtil.buildJson5(bodyFieldOp.get(), 0));
-                if (appSettingState.isWithJsonSchema()) {
-                    JSONObject jsonSchema = new JSONObject();
-                    JavaTypeEnum schemaType = bodyFieldOp.get().getType();
-                    jsonSchema.put("type", schemaType == JavaTypeEnum.ARRAY ? "array" : "object");
-                    jsonSchema.put("$id", "http://example.com/root.json");
-                    jsonSchema.put("title", "The Root Schema");
-                    jsonSchema.put("hidden", true);
-                    jsonSchema.put("$schema", "http://json-schema.org/draft-07/schema#");
-                    JSONObject properties = new JSONObject();
-                    String bPath = "#/properties";
-                    String baseItemsPath = "#/items";
-                    if (schemaType == JavaTypeEnum.ARRAY) {
-                        jsonSchema.put("items", JsonUtil.buildJsonSchemaItems(bodyFieldOp.get(), baseItemsPath, 0));
-                    } else {
-                        if (CollectionUtils.isNotEmpty(bodyFieldOp.get().getChildren())) {
-                            for (FieldWrapper child : bodyFieldOp.get().getChildren()) {
-                                properties.put(child.getName(), JsonUtil.buildJsonSchemaProperties(child, bPath, 0));
-                            }
-                        }
-                    }
-                    if (MapUtils.isNotEmpty(properties)) {
-                        jsonSchema.put("properties", properties);
-                    }
-                    bodyBean.setJsonSchema(jsonSchema.toJSONString());
+                BodyGenerator.Body body = BodyGenerator.generate(bodyFieldOp.get(), appSettingState.isWithJsonSchema());
+                bodyBean.setRaw(body.getJson());
+                if (body.getJsonSchema() != null) {
+                    bodyBean.setJsonSchema(body.getJsonSchema().toJSONString());
                 }
             }
         } else {
             bodyBean.setMode("formdata");
             Optional<FieldWrapper> formFieldOp = getFormParam(this.getRequestFieldList());
             if (formFieldOp.isPresent()) {
-                bodyBean.setFormdata(JsonUtil.buildFormdata(formFieldOp.get(), 0));
+                bodyBean.setFormdata(buildFormdata(formFieldOp.get()));
             }
         }
 
@@ -205,6 +181,21 @@ public class RequestWrapper {
         return itemBean;
     }
 
+    /**
+     * RequestPart 作为文件上传，其他参数按字段展开
+     *
+     * @param fieldWrapper
+     * @return
+     */
+    private List<PostmanModel.ItemBean.RequestBean.BodyBean.FormDataBean> buildFormdata(FieldWrapper fieldWrapper) {
+        if (FieldUtil.findAnnotationByName(fieldWrapper.getAnnotations(), WebAnnotation.RequestPart) != null) {
+            List<PostmanModel.ItemBean.RequestBean.BodyBean.FormDataBean> formDataBeans = new LinkedList<>();
+            formDataBeans.add(new PostmanModel.ItemBean.RequestBean.BodyBean.FormDataBean(fieldWrapper.getName(), "file", null, null));
+            return formDataBeans;
+        }
+        return BodyGenerator.generate(fieldWrapper, false).getFormdata();
+    }
+
     private Optional<FieldWrapper> getRequestBodyParam(List<FieldWrapper> requestFieldList) {
         return requestFieldList
                 .stream()
@@ -242,39 +233,97 @@ public class RequestWrapper {
         responseBean.setCode(200);
         responseBean.setHeader(getResponseHeader(itemBean));
         responseBean.set_postman_previewlanguage("json");
-        responseBean.setOriginalRequest(JSONObject.parseObject(JSONObject.toJSONString(itemBean.getRequest()), PostmanModel.ItemBean.ResponseBean.OriginalRequestBean.class));
-
-        responseBean.setBody(JsonUtil.buildJson5(this.response, 0));
-        if (this.appSettingState.isWithJsonSchema()) {
-            JSONObject jsonSchema = new JSONObject();
-            JavaTypeEnum schemaType = this.response.getType();
-            jsonSchema.put("type", schemaType == JavaTypeEnum.ARRAY ? "array" : "object");
-            jsonSchema.put("$id", "http://example.com/root.json");
-            jsonSchema.put("title", "The Root Schema");
-            jsonSchema.put("hidden", true);
-            jsonSchema.put("$schema", "http://json-schema.org/draft-07/schema#");
-            JSONObject properties = new JSONObject();
-            String basePath = "#/properties";
-            String baseItemsPath = "#/items";
-            if (schemaType == JavaTypeEnum.ARRAY) {
-                jsonSchema.put("items", JsonUtil.buildJsonSchemaItems(this.response, baseItemsPath, 0));
-            } else {
-                if (CollectionUtils.isNotEmpty(this.response.getChildren())) {
-                    for (FieldWrapper child : this.response.getChildren()) {
-                        properties.put(child.getName(), JsonUtil.buildJsonSchemaProperties(child, basePath, 0));
-                    }
-                }
-            }
-            if (MapUtils.isNotEmpty(properties)) {
-                jsonSchema.put("properties", properties);
-            }
-            responseBean.setJsonSchema(jsonSchema.toJSONString());
+        if (this.appSettingState.isWithOriginalRequest()) {
+            responseBean.setOriginalRequest(toOriginalRequest(itemBean.getRequest()));
+        }
+
+        BodyGenerator.Body body = BodyGenerator.generate(this.response, this.appSettingState.isWithJsonSchema());
+        responseBean.setBody(body.getJson());
+        if (body.getJsonSchema() != null) {
+            responseBean.setJsonSchema(body.getJsonSchema().toJSONString());
         }
         return new ArrayList<>() {{
             add(responseBean);
         }};
     }
 
+    /**
+     * 直接引用请求中的 url、header、options 和 raw，不再序列化后重新解析
+     *
+     * @param request
+     * @return
+     */
+    private static PostmanModel.ItemBean.ResponseBean.OriginalRequestBean toOriginalRequest(PostmanModel.ItemBean.RequestBean request) {
+        PostmanModel.ItemBean.ResponseBean.OriginalRequestBean originalRequest = new PostmanModel.ItemBean.ResponseBean.OriginalRequestBean();
+        originalRequest.setMethod(request.getMethod());
+        originalRequest.setUrl(request.getUrl());
+        originalRequest.setHeader(request.getHeader());
+        PostmanModel.ItemBean.RequestBean.BodyBean body = request.getBody();
+        if (body != null) {
+            PostmanModel.ItemBean.ResponseBean.OriginalRequestBean.BodyBeanX bodyX = new PostmanModel.ItemBean.ResponseBean.OriginalRequestBean.BodyBeanX();
+            bodyX.setMode(body.getMode());
+            bodyX.setOptions(body.getOptions());
+            bodyX.setRaw(body.getRaw());
+            originalRequest.setBody(bodyX);
+        }
+        return originalRequest;
+    }
+
+    /**
+     * 请求参数和返回值中引用到的类，包括泛型参数和父类，不包括 jdk 自带的类
+     *
+     * @return
+     */
+    public Set<PsiClass> getReferencedClasses() {
+        Set<PsiClass> classes = new HashSet<>();
+        //共享的子树只遍历一次
+        Set<List<FieldWrapper>> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (FieldWrapper fieldWrapper : requestFieldList) {
+            collectClasses(fieldWrapper, classes, visited);
+        }
+        collectClasses(response, classes, visited);
+        return classes;
+    }
+
+    private static void collectClasses(FieldWrapper fieldWrapper, Set<PsiClass> classes, Set<List<FieldWrapper>> visited) {
+        if (fieldWrapper == null) {
+            return;
+        }
+        collectClasses(fieldWrapper.getPsiType(), classes);
+        List<FieldWrapper> children = fieldWrapper.getChildren();
+        if (children != null && visited.add(children)) {
+            for (FieldWrapper child : children) {
+                collectClasses(child, classes, visited);
+            }
+        }
+    }
+
+    private static void collectClasses(PsiType psiType, Set<PsiClass> classes) {
+        if (psiType instanceof PsiArrayType) {
+            collectClasses(((PsiArrayType) psiType).getComponentType(), classes);
+        } else if (psiType instanceof PsiWildcardType) {
+            collectClasses(((PsiWildcardType) psiType).getBound(), classes);
+        } else if (psiType instanceof PsiClassType) {
+            collectClass(((PsiClassType) psiType).resolve(), classes);
+            for (PsiType parameter : ((PsiClassType) psiType).getParameters()) {
+                collectClasses(parameter, classes);
+            }
+        }
+    }
+
+    private static void collectClass(PsiClass psiClass, Set<PsiClass> classes) {
+        if (psiClass == null || psiClass instanceof PsiTypeParameter) {
+            return;
+        }
+        String qualifiedName = psiClass.getQualifiedName();
+        if (qualifiedName == null || qualifiedName.startsWith("java.") || !classes.add(psiClass)) {
+            return;
+        }
+        for (PsiClass superClass : psiClass.getSupers()) {
+            collectClass(superClass, classes);
+        }
+    }
+
     @Override
     public String toString() {
         return "RequestWrapper [name=" + name + ", paramStr=" + Optional.ofNullable(paramStr).orElse("") + ", returnStr=" + Optional.ofNullable(returnStr).orElse("") + "]";
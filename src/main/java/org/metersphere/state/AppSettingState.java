@@ -40,7 +40,7 @@ public class AppSettingState {
 
     //覆盖或者不覆盖 fullCoverage/incrementalMerge
     private String modeId;
-    //嵌套对象参数解析的深度
+    //嵌套对象参数解析的深度，示例、json schema 和 form-data 都按每层加 1 计算
     private Integer deepth = 3;
     //全体 url 前缀
     private String contextPath;
@@ -48,6 +48,44 @@ public class AppSettingState {
     private boolean javadoc = true;
     //是否覆盖模块 coverModule
     private boolean coverModule = true;
+    //是否通过索引查找 controller
+    private boolean indexDiscovery = true;
+    //是否多线程并行解析 controller
+    private boolean parallelTransform = true;
+    //是否边解析边上传，不生成临时文件，使用分块传输，部分反向代理不支持
+    private boolean streamingUpload = false;
+    //是否分批上传，超大项目一次导入容易超时
+    private boolean batchUpload = false;
+    //每批最多 controller 数
+    private int batchMaxControllers = 50;
+    //每批最大字节数
+    private long batchMaxBytes = 4 * 1024 * 1024;
+    //同时上传的批次数
+    private int batchConcurrency = 2;
+    //临时错误的重试次数
+    private int uploadRetries = 3;
+    //首次重试的等待时间 ms，之后每次翻倍
+    private long retryBaseDelay = 1000;
+    //是否只上传上一次成功导出后新增或变化的接口，只在覆盖模式下生效
+    private boolean incrementalSync = false;
+    //是否把 controller 的解析结果缓存到磁盘
+    private boolean persistentCache = true;
+    //是否在内存中缓存 controller 的解析结果，代码变化后自动失效
+    private boolean modelCache = true;
+    //建立连接超时时间 ms
+    private int connectTimeout = 10000;
+    //读取响应超时时间 ms，导入大量接口时服务端处理较慢
+    private int socketTimeout = 300000;
+    //从连接池获取连接的超时时间 ms
+    private int connectionRequestTimeout = 10000;
+    //项目、模块、版本等元数据的缓存有效期 s
+    private int metadataCacheTtl = 600;
+    //连接测试成功后的有效期 s，有效期内导出不再重复测试
+    private int connectionCheckTtl = 300;
+    //响应示例中是否带上 originalRequest，不需要时可以减小上传的数据量
+    private boolean withOriginalRequest = true;
+    //示例是否生成带字段注释的 json5，ms 不能解析注释时关闭
+    private boolean json5Example = false;
 
     //临时变量
     //是否加入 basePath
@@ -64,6 +102,15 @@ public class AppSettingState {
         return this.meterSphereAddress;
     }
 
+    /**
+     * 影响解析结果的配置，变化后缓存的解析结果失效
+     *
+     * @return
+     */
+    public String exportSignature() {
+        return deepth + "|" + contextPath + "|" + javadoc + "|" + withBasePath + "|" + withJsonSchema + "|" + withOriginalRequest + "|" + json5Example;
+    }
+
     /**
      * 清空
      */
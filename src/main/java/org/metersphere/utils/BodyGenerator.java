@@ -0,0 +1,277 @@
+package org.metersphere.utils;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.intellij.psi.PsiArrayType;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.util.PsiUtil;
+import org.apache.commons.lang.StringUtils;
+import org.metersphere.AppSettingService;
+import org.metersphere.constants.JavaTypeEnum;
+import org.metersphere.constants.PluginConstants;
+import org.metersphere.model.FieldWrapper;
+import org.metersphere.model.PostmanModel;
+import org.metersphere.state.AppSettingState;
+
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * 一次遍历 FieldWrapper 树，同时生成 json 示例、json schema 和 form-data 行
+ * 三者由同一个节点生成，字段和层级始终一致
+ * 每下一层对象深度加 1，超过配置的深度后对象为空；form-data 的描述取字段自身的注释
+ * 开启 json5 时示例在同一次遍历中写出，字段的注释和必填标记写在行尾
+ */
+public class BodyGenerator {
+    private static final Gson gson = new GsonBuilder().excludeFieldsWithModifiers(Modifier.STATIC, Modifier.FINAL).setPrettyPrinting().create();
+    private static final String ROOT_ID = "http://example.com/root.json";
+
+    private final AppSettingState state = AppSettingService.getInstance().getState();
+    //未开启 json5 时为空
+    private final Json5Writer json5;
+    private final List<PostmanModel.ItemBean.RequestBean.BodyBean.FormDataBean> formdata = new LinkedList<>();
+
+    private BodyGenerator() {
+        this.json5 = state.isJson5Example() ? new Json5Writer() : null;
+    }
+
+    /**
+     * 生成结果
+     */
+    public static class Body {
+        private Object example;
+        private String json;
+        private JSONObject jsonSchema;
+        private List<PostmanModel.ItemBean.RequestBean.BodyBean.FormDataBean> formdata = new LinkedList<>();
+
+        public Object getExample() {
+            return example;
+        }
+
+        /**
+         * @return 格式化后的 json 或 json5 示例，根节点是基础类型时直接返回值
+         */
+        public String getJson() {
+            return json;
+        }
+
+        /**
+         * @return 未开启 json schema 时为空
+         */
+        public JSONObject getJsonSchema() {
+            return jsonSchema;
+        }
+
+        public List<PostmanModel.ItemBean.RequestBean.BodyBean.FormDataBean> getFormdata() {
+            return formdata;
+        }
+    }
+
+    /**
+     * @param root       请求体参数或返回值
+     * @param withSchema 是否生成 json schema
+     * @return
+     */
+    public static Body generate(FieldWrapper root, boolean withSchema) {
+        Body body = new Body();
+        if (root == null) {
+            return body;
+        }
+        BodyGenerator generator = new BodyGenerator();
+        JSONObject schema = withSchema ? createRootSchema(root) : null;
+        Object example = generator.visitValue(root, root.getName(), "", "", 0, schema);
+        body.example = example;
+        if (JavaTypeEnum.ENUM.equals(root.getType())) {
+            body.json = String.valueOf(example);
+        } else {
+            body.json = generator.json5 != null ? generator.json5.toString() : gson.toJson(example);
+        }
+        body.jsonSchema = schema;
+        body.formdata = generator.formdata;
+        return body;
+    }
+
+    /**
+     * @param field     当前节点
+     * @param key       当前节点的 form-data key
+     * @param prefix    子节点 form-data key 的前缀，根节点的子节点没有前缀
+     * @param path      当前节点 json schema 的 $id，根节点为空
+     * @param curDeepth 当前深度
+     * @param schema    当前节点的 json schema，未开启时为空
+     * @return 当前节点的示例值
+     */
+    private Object visitValue(FieldWrapper field, String key, String prefix, String path, int curDeepth, JSONObject schema) {
+        String base = path.isEmpty() ? "#" : path + "/#";
+        switch (field.getType()) {
+            case ENUM:
+                addText(key, field);
+                Object value = FieldUtil.getValue(field);
+                if (json5 != null) {
+                    json5.value(value);
+                }
+                return value;
+            case ARRAY:
+                if (json5 != null) {
+                    json5.beginArray();
+                }
+                Object element = visitElement(field, key + "[0]", base + "/items", curDeepth + 1, schema);
+                if (json5 != null) {
+                    json5.endArray();
+                }
+                return Collections.singletonList(element);
+            default:
+                if (PluginConstants.simpleJavaType.contains(field.getPsiType().getCanonicalText())) {
+                    addText(key, field);
+                } else if (FieldUtil.isMapType(field.getPsiType())) {
+                    formdata.add(new PostmanModel.ItemBean.RequestBean.BodyBean.FormDataBean(key + ".key", "text", null, field.getDesc()));
+                }
+                return visitObject(field.getChildren(), prefix, base + "/properties", curDeepth + 1, schema);
+        }
+    }
+
+    private Map<String, Object> visitObject(List<FieldWrapper> children, String prefix, String propertiesPath, int curDeepth, JSONObject schema) {
+        Map<String, Object> example = new LinkedHashMap<>();
+        if (json5 != null) {
+            json5.beginObject();
+        }
+        if (children == null || children.isEmpty() || curDeepth > state.getDeepth()) {
+            if (json5 != null) {
+                json5.endObject();
+            }
+            return example;
+        }
+        JSONObject properties = new JSONObject(true);
+        for (FieldWrapper child : children) {
+            String key = prefix.isEmpty() ? child.getName() : prefix + "." + child.getName();
+            String path = propertiesPath + "/" + child.getName();
+            JSONObject childSchema = schema != null ? createProperty(child, path) : null;
+            if (json5 != null) {
+                json5.name(child.getName(), buildComment(child));
+            }
+            example.put(child.getName(), visitValue(child, key, key, path, curDeepth, childSchema));
+            if (childSchema != null) {
+                properties.put(child.getName(), childSchema);
+            }
+        }
+        if (schema != null && !properties.isEmpty()) {
+            schema.put("properties", properties);
+        }
+        if (json5 != null) {
+            json5.endObject();
+        }
+        return example;
+    }
+
+    /**
+     * 数组和集合只生成一个元素，元素是对象时 children 即为元素的字段
+     */
+    private Object visitElement(FieldWrapper field, String key, String itemsPath, int curDeepth, JSONObject schema) {
+        PsiType componentType = field.getPsiType() instanceof PsiArrayType ? ((PsiArrayType) field.getPsiType()).getComponentType() :
+                PsiUtil.extractIterableTypeParameter(field.getPsiType(), false);
+        JSONObject itemSchema = null;
+        if (schema != null) {
+            itemSchema = new JSONObject(true);
+            JSONArray items = new JSONArray();
+            items.add(itemSchema);
+            schema.put("items", items);
+        }
+        if (field.getChildren() != null && !field.getChildren().isEmpty()) {
+            if (itemSchema != null) {
+                fillProperty(itemSchema, "object", null, "items", itemsPath);
+            }
+            return visitObject(field.getChildren(), key, itemsPath + "/#/properties", curDeepth, itemSchema);
+        }
+        if (componentType == null) {
+            return emptyElement();
+        }
+        if (itemSchema != null) {
+            fillProperty(itemSchema, getSchemaType(componentType), null, "items", itemsPath);
+        }
+        Object value = FieldUtil.normalTypes.get(componentType.getPresentableText());
+        if (value == null) {
+            return emptyElement();
+        }
+        if (json5 != null) {
+            json5.value(value);
+        }
+        formdata.add(new PostmanModel.ItemBean.RequestBean.BodyBean.FormDataBean(key, "text", PluginConstants.simpleJavaTypeValue.get(componentType.getCanonicalText()), field.getDesc()));
+        return value;
+    }
+
+    private Object emptyElement() {
+        if (json5 != null) {
+            json5.beginObject().endObject();
+        }
+        return new HashMap<>();
+    }
+
+    /**
+     * 字段注释、循环引用及必填标记
+     */
+    private static String buildComment(FieldWrapper fieldInfo) {
+        String desc = appendReference(fieldInfo.getDesc(), fieldInfo);
+        if (!fieldInfo.isRequired()) {
+            return desc;
+        }
+        if (StringUtils.isBlank(desc)) {
+            return "必填";
+        }
+        return desc + ",必填";
+    }
+
+    private void addText(String key, FieldWrapper field) {
+        formdata.add(new PostmanModel.ItemBean.RequestBean.BodyBean.FormDataBean(key, "text", PluginConstants.simpleJavaTypeValue.get(field.getPsiType().getCanonicalText()), field.getDesc()));
+    }
+
+    private static JSONObject createRootSchema(FieldWrapper root) {
+        JSONObject jsonSchema = new JSONObject(true);
+        jsonSchema.put("type", root.getType() == JavaTypeEnum.ARRAY ? "array" : "object");
+        jsonSchema.put("$id", ROOT_ID);
+        jsonSchema.put("title", "The Root Schema");
+        jsonSchema.put("hidden", true);
+        jsonSchema.put("$schema", "http://json-schema.org/draft-07/schema#");
+        return jsonSchema;
+    }
+
+    private static JSONObject createProperty(FieldWrapper fieldWrapper, String path) {
+        JSONObject pro = new JSONObject(true);
+        String type = fieldWrapper.getType() == JavaTypeEnum.ARRAY ? "array" : getSchemaType(fieldWrapper.getPsiType());
+        String description = null;
+        if (StringUtils.isNotBlank(fieldWrapper.getDesc()) && !StringUtils.equalsIgnoreCase(fieldWrapper.getDesc(), fieldWrapper.getPsiType().getPresentableText())) {
+            description = fieldWrapper.getDesc();
+        }
+        fillProperty(pro, type, appendReference(description, fieldWrapper), fieldWrapper.getName(), path);
+        return pro;
+    }
+
+    /**
+     * 循环引用的节点没有展开，在注释中说明引用的类型
+     */
+    private static String appendReference(String desc, FieldWrapper fieldWrapper) {
+        if (fieldWrapper.getReferenceType() == null) {
+            return desc;
+        }
+        String reference = "循环引用 " + fieldWrapper.getReferenceType();
+        return StringUtils.isBlank(desc) ? reference : desc + "," + reference;
+    }
+
+    private static void fillProperty(JSONObject pro, String type, String description, String name, String path) {
+        pro.put("type", type);
+        if (description != null) {
+            pro.put("description", description);
+        }
+        pro.put("title", "The " + name + " Schema");
+        pro.put("$id", path);
+        pro.put("hidden", true);
+        JSONObject mock = new JSONObject();
+        mock.put("mock", "");
+        pro.put("mock", mock);
+    }
+
+    private static String getSchemaType(PsiType psiType) {
+        String type = PluginConstants.simpleJavaTypeJsonSchemaMap.get(psiType.getCanonicalText());
+        return type == null ? "object" : type;
+    }
+}
@@ -138,35 +138,16 @@ public class FieldUtil {
         return genericList.contains(typeName);
     }
 
-    public static boolean isIterableType(String typeName) {
-        return isCollectionType(typeName) || typeName.contains("[]");
-    }
-
     public static boolean isIterableType(PsiType psiType) {
-        return isIterableType(psiType.getPresentableText());
+        return TypeClassifier.isIterable(psiType);
     }
 
     public static boolean isCollectionType(PsiType psiType) {
-        return isCollectionType(psiType.getPresentableText());
-    }
-
-    private static boolean isCollectionType(String typeName) {
-        if (StringUtils.isEmpty(typeName)) {
-            return false;
-        }
-        return typeName.startsWith("List<")
-                || typeName.startsWith("Set<")
-                || typeName.startsWith("Collection<");
+        return TypeClassifier.isCollection(psiType);
     }
 
     public static boolean isNormalType(PsiType psiType) {
-        PsiClass psiClass = PsiUtil.resolveClassInType(psiType);
-        if (psiClass != null) {
-            if (psiClass.isEnum()) {
-                return true;
-            }
-        }
-        return isNormalType(psiType.getPresentableText());
+        return TypeClassifier.isNormal(psiType);
     }
 
     public static PsiAnnotation findAnnotationByName(List<PsiAnnotation> annotations, String text) {
@@ -182,12 +163,7 @@ public class FieldUtil {
     }
 
     public static boolean isMapType(PsiType psiType) {
-        String presentableText = psiType.getPresentableText();
-        List<String> mapList = Arrays.asList("Map", "HashMap", "LinkedHashMap", "JSONObject");
-        if (mapList.contains(presentableText)) {
-            return true;
-        }
-        return presentableText.startsWith("Map<") || presentableText.startsWith("HashMap<") || presentableText.startsWith("LinkedHashMap<");
+        return TypeClassifier.isMap(psiType);
     }
 
     public static boolean isStaticField(PsiField psiField) {
@@ -279,15 +255,31 @@ public class FieldUtil {
         Map r = new HashMap();
         r.put("rest", false);
         r.put("general", false);
+        existRequetAnnotation(annotations, r, new HashSet<>());
+        return r;
+    }
+
+    /**
+     * 兼容以 RestController/Controller 为元注解的自定义注解
+     */
+    private static void existRequetAnnotation(Collection<PsiAnnotation> annotations, Map<String, Boolean> r, Set<String> visited) {
         Iterator<PsiAnnotation> it = annotations.iterator();
         while (it.hasNext()) {
             PsiAnnotation next = it.next();
-            if (next.getQualifiedName().equalsIgnoreCase("org.springframework.web.bind.annotation.RestController"))
+            String qualifiedName = next.getQualifiedName();
+            if (qualifiedName == null || !visited.add(qualifiedName))
+                continue;
+            if (qualifiedName.equalsIgnoreCase("org.springframework.web.bind.annotation.RestController"))
                 r.put("rest", true);
-            if (next.getQualifiedName().equalsIgnoreCase("org.springframework.stereotype.Controller"))
+            else if (qualifiedName.equalsIgnoreCase("org.springframework.stereotype.Controller"))
                 r.put("general", true);
+            else if (!qualifiedName.startsWith("java.")) {
+                PsiClass annotationType = next.resolveAnnotationType();
+                if (annotationType != null) {
+                    existRequetAnnotation(Arrays.asList(annotationType.getAnnotations()), r, visited);
+                }
+            }
         }
-        return r;
     }
 
     public static Map<String, String> getParamMap(PsiMethod e1, AppSettingState state) {
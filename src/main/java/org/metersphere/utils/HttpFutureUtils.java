@@ -1,19 +1,35 @@
 package org.metersphere.utils;
 
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.CookieStore;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLContexts;
+import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
+import org.metersphere.AppSettingService;
+import org.metersphere.MSPluginDisposable;
+import org.metersphere.state.AppSettingState;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.X509TrustManager;
@@ -27,8 +43,12 @@ import java.util.concurrent.*;
 public class HttpFutureUtils {
     private static SSLConnectionSocketFactory factory;
     private static CookieStore cookieStore;
-    private static ExecutorService executorService;
+    //IDE 管理的有界线程池，不需要也不能手动关闭
+    private static final ExecutorService executorService = AppExecutorUtil.createBoundedApplicationPoolExecutor("MeterSphere Http", 10);
     private static Logger logger = Logger.getInstance(HttpFutureUtils.class);
+    //服务端没有返回 keep-alive 时连接的保活时间
+    private static final long DEFAULT_KEEP_ALIVE = 30 * 1000L;
+    private static volatile CloseableHttpClient httpClient;
 
     static {
         cookieStore = new BasicCookieStore();
@@ -46,193 +66,182 @@ public class HttpFutureUtils {
             e.printStackTrace();
         }
         factory = new SSLConnectionSocketFactory(sslContext, SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
-        executorService = Executors.newFixedThreadPool(10);
     }
 
+    /**
+     * 共享的连接池客户端，连接保活复用，调用方不要关闭，插件卸载时统一关闭
+     *
+     * @return
+     */
     public static CloseableHttpClient getOneHttpClient() {
-        return HttpClients.custom().setDefaultCookieStore(cookieStore).setSSLSocketFactory(factory).build();
+        CloseableHttpClient client = httpClient;
+        if (client == null) {
+            synchronized (HttpFutureUtils.class) {
+                client = httpClient;
+                if (client == null) {
+                    client = createHttpClient();
+                    httpClient = client;
+                    Disposer.register(MSPluginDisposable.getInstance(), HttpFutureUtils::shutdown);
+                }
+            }
+        }
+        return client;
+    }
+
+    private static CloseableHttpClient createHttpClient() {
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", factory)
+                .build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+        connectionManager.setMaxTotal(20);
+        connectionManager.setDefaultMaxPerRoute(10);
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : DEFAULT_KEEP_ALIVE;
+        };
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(DEFAULT_KEEP_ALIVE, TimeUnit.MILLISECONDS)
+                .setDefaultCookieStore(cookieStore)
+                .setDefaultRequestConfig(getRequestConfig())
+                .build();
+    }
+
+    /**
+     * 超时时间取当前配置，修改配置后对之后的请求立即生效
+     *
+     * @return
+     */
+    public static RequestConfig getRequestConfig() {
+        AppSettingState state = AppSettingService.getInstance().getState();
+        return RequestConfig.custom()
+                .setConnectTimeout(state.getConnectTimeout())
+                .setSocketTimeout(state.getSocketTimeout())
+                .setConnectionRequestTimeout(state.getConnectionRequestTimeout())
+                .build();
+    }
+
+    /**
+     * 使用共享客户端和当前超时配置执行请求，调用方负责关闭 response 以归还连接
+     *
+     * @param request
+     * @return
+     * @throws IOException
+     */
+    public static CloseableHttpResponse execute(HttpRequestBase request) throws IOException {
+        request.setConfig(getRequestConfig());
+        return getOneHttpClient().execute(request);
+    }
+
+    /**
+     * 异步请求使用的线程池
+     *
+     * @return
+     */
+    public static ExecutorService getExecutor() {
+        return executorService;
+    }
+
+    public static void shutdown() {
+        CloseableHttpClient client;
+        synchronized (HttpFutureUtils.class) {
+            client = httpClient;
+            httpClient = null;
+        }
+        if (client != null) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                logger.warn("关闭 httpclient 失败！", e);
+            }
+        }
     }
 
     public static String getHttps(String url, Map<String, String> headers) {
-        try {
-            return executorService.submit(() -> {
-                CloseableHttpClient httpClient = HttpClients.custom().setDefaultCookieStore(cookieStore).setSSLSocketFactory(factory).build();
-                HttpGet httpGet = new HttpGet(url);
-                HttpEntity entity = null;
-                try {
-
-                    if (headers != null) {
-                        for (Map.Entry<String, String> entry : headers.entrySet()) {
-                            httpGet.addHeader(entry.getKey(), entry.getValue());
-                        }
-                    }
-
-                    HttpResponse response = httpClient.execute(httpGet);
-                    if (response.getEntity() == null) {
-                        return null;
-                    }
-                    entity = response.getEntity();
-                    return EntityUtils.toString(entity);
-                } catch (Exception e) {
-                    logger.error(String.format("HttpClient getHttpsResponse执行失败！url : {%s}, e：{%s}", url, e));
-                } finally {
-                    if (httpClient != null) {
-                        try {
-                            httpClient.close();
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                    }
-                }
+        HttpGet httpGet = new HttpGet(url);
+        if (headers != null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                httpGet.addHeader(entry.getKey(), entry.getValue());
+            }
+        }
+        try (CloseableHttpResponse response = execute(httpGet)) {
+            if (response.getEntity() == null) {
                 return null;
-            }).get(1l, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            logger.error(String.format("HttpClient getHttpsResponse执行失败！url : {%s}, e：{%s}", url, e));
-        } catch (ExecutionException e) {
+            }
+            return EntityUtils.toString(response.getEntity());
+        } catch (Exception e) {
             logger.error(String.format("HttpClient getHttpsResponse执行失败！url : {%s}, e：{%s}", url, e));
-        } catch (TimeoutException e) {
-            logger.error(String.format("HttpClient getHttpsResponse执行失败！失败原因：超时！url : {%s}, e：{%s}", url, e));
         }
         return null;
     }
 
+    public static CompletableFuture<String> getHttpsAsync(String url, Map<String, String> headers) {
+        return CompletableFuture.supplyAsync(() -> getHttps(url, headers), executorService);
+    }
+
     public static String postHttps(String url, String payload, String contenttype) {
         return postHttps(url, payload, contenttype, null);
     }
 
+    /**
+     * 响应体读入内存后即关闭 response 归还连接，返回的 response 不需要调用方关闭
+     */
     public static HttpResponse postHttpsResponse(String url, String payload, String contenttype, Map<String, String> headers) {
-        try {
-            return executorService.submit(new Callable<HttpResponse>() {
-                @Override
-                public HttpResponse call() throws Exception {
-                    HttpPost httpPost = new HttpPost(url);
-                    CloseableHttpClient httpClient = HttpClients.custom().setDefaultCookieStore(cookieStore).setSSLSocketFactory(factory).build();
-                    try {
-                        if (headers != null) {
-                            for (Map.Entry<String, String> entry : headers.entrySet()) {
-                                httpPost.addHeader(entry.getKey(), entry.getValue());
-                            }
-                        }
-                        if (StringUtils.isNotBlank(contenttype)) {
-                            httpPost.addHeader("Content-Type", contenttype);
-                        }
-                        if (StringUtils.isNotBlank(payload)) {
-                            HttpEntity httpEntity = new StringEntity(payload, "utf-8");
-                            httpPost.setEntity(httpEntity);
-                        }
-                        return httpClient.execute(httpPost);
-                    } catch (Exception e) {
-                        throw new RuntimeException("url请求失败：url" + url);
-                    } finally {
-                        if (httpClient != null) {
-                            try {
-                                httpClient.close();
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                    }
-                }
-            }).get(1l, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            logger.error(String.format("HttpClient getHttpsResponse执行失败！url : {%s}, e：{%s}", url, e));
-        } catch (ExecutionException e) {
+        try (CloseableHttpResponse response = execute(buildPost(url, payload, contenttype, headers))) {
+            if (response.getEntity() != null) {
+                response.setEntity(new BufferedHttpEntity(response.getEntity()));
+            }
+            return response;
+        } catch (Exception e) {
             logger.error(String.format("HttpClient getHttpsResponse执行失败！url : {%s}, e：{%s}", url, e));
-        } catch (TimeoutException e) {
-            logger.error(String.format("HttpClient getHttpsResponse执行失败！失败原因：超时！url : {%s}, e：{%s}", url, e));
         }
         return null;
     }
 
     public static String postHttps(String url, HttpEntity entity, String contenttype, Map<String, String> headers) {
-        try {
-            return executorService.submit(new Callable<String>() {
-                @Override
-                public String call() throws Exception {
-                    HttpPost httpPost = new HttpPost(url);
-                    HttpEntity r = null;
-                    CloseableHttpClient httpClient = HttpClients.custom().setDefaultCookieStore(cookieStore).setSSLSocketFactory(factory).build();
-                    try {
-                        if (headers != null) {
-                            for (Map.Entry<String, String> entry : headers.entrySet()) {
-                                httpPost.addHeader(entry.getKey(), entry.getValue());
-                            }
-                        }
-                        if (StringUtils.isNotBlank(contenttype)) {
-                            httpPost.addHeader("Content-Type", contenttype);
-                        }
-                        if (entity != null) {
-                            httpPost.setEntity(entity);
-                        }
-                        r = httpClient.execute(httpPost).getEntity();
-                        return EntityUtils.toString(r);
-                    } catch (Exception e) {
-                        throw new RuntimeException("url请求失败：url" + url);
-                    } finally {
-                        if (httpClient != null) {
-                            try {
-                                httpClient.close();
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                    }
-                }
-            }).get(1l, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            logger.error(String.format("HttpClient getHttpsResponse执行失败！url : {%s}, e：{%s}", url, e));
-        } catch (ExecutionException e) {
-            logger.error(String.format("HttpClient getHttpsResponse执行失败！url : {%s}, e：{%s}", url, e));
-        } catch (TimeoutException e) {
-            logger.error(String.format("HttpClient getHttpsResponse执行失败！失败原因：超时！url : {%s}, e：{%s}", url, e));
+        HttpPost httpPost = buildPost(url, null, contenttype, headers);
+        if (entity != null) {
+            httpPost.setEntity(entity);
         }
-        return null;
+        return postHttps(httpPost);
     }
 
     public static String postHttps(String url, String payload, String contenttype, Map<String, String> headers) {
-        try {
-            return executorService.submit(new Callable<String>() {
-                @Override
-                public String call() throws Exception {
-                    HttpPost httpPost = new HttpPost(url);
-                    CloseableHttpClient httpClient = HttpClients.custom().setDefaultCookieStore(cookieStore).setSSLSocketFactory(factory).build();
-                    try {
-                        if (headers != null) {
-                            for (Map.Entry<String, String> entry : headers.entrySet()) {
-                                httpPost.addHeader(entry.getKey(), entry.getValue());
-                            }
-                        }
-                        if (StringUtils.isNotBlank(contenttype)) {
-                            httpPost.addHeader("Content-Type", contenttype);
-                        }
-                        if (StringUtils.isNotBlank(payload)) {
-                            HttpEntity httpEntity = new StringEntity(payload, "utf-8");
-                            httpPost.setEntity(httpEntity);
-                        }
-                        return EntityUtils.toString(httpClient.execute(httpPost).getEntity());
-                    } catch (Exception e) {
-                        throw new RuntimeException("url请求失败：url" + url);
-                    } finally {
-                        if (httpClient != null) {
-                            try {
-                                httpClient.close();
-                            } catch (IOException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                    }
-                }
-            }).get(1l, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            logger.error(String.format("HttpClient getHttpsResponse执行失败！url : {%s}, e：{%s}", url, e));
-        } catch (ExecutionException e) {
-            logger.error(String.format("HttpClient getHttpsResponse执行失败！url : {%s}, e：{%s}", url, e));
-        } catch (TimeoutException e) {
-            logger.error(String.format("HttpClient getHttpsResponse执行失败！失败原因：超时！url : {%s}, e：{%s}", url, e));
+        return postHttps(buildPost(url, payload, contenttype, headers));
+    }
+
+    public static CompletableFuture<String> postHttpsAsync(String url, String payload, String contenttype, Map<String, String> headers) {
+        return CompletableFuture.supplyAsync(() -> postHttps(url, payload, contenttype, headers), executorService);
+    }
+
+    private static String postHttps(HttpPost httpPost) {
+        try (CloseableHttpResponse response = execute(httpPost)) {
+            return EntityUtils.toString(response.getEntity());
+        } catch (Exception e) {
+            logger.error(String.format("HttpClient getHttpsResponse执行失败！url : {%s}, e：{%s}", httpPost.getURI(), e));
         }
         return null;
     }
 
+    private static HttpPost buildPost(String url, String payload, String contenttype, Map<String, String> headers) {
+        HttpPost httpPost = new HttpPost(url);
+        if (headers != null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                httpPost.addHeader(entry.getKey(), entry.getValue());
+            }
+        }
+        if (StringUtils.isNotBlank(contenttype)) {
+            httpPost.addHeader("Content-Type", contenttype);
+        }
+        if (StringUtils.isNotBlank(payload)) {
+            httpPost.setEntity(new StringEntity(payload, "utf-8"));
+        }
+        return httpPost;
+    }
+
     public static void main(String[] args) throws IOException {
 //        postJSONHttps("https://10.132.46.250/json/login_session", "{\"method\":\"login\",\"user_login\":\"administrator\",\"password\":\"61505443\"}");
 //        System.out.println(postJSONHttps("https://10.132.47.215/data/login", "{\"user\":\"root\",\"password\":\"Calong@2015\"\"}"));
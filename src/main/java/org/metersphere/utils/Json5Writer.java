@@ -0,0 +1,129 @@
+package org.metersphere.utils;
+
+import com.google.gson.Gson;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 边遍历边写出带 // 注释的 json5，格式与 gson 的 pretty print 一致
+ * 注释写在逗号之后，对象和数组的注释写在开始的括号之后
+ */
+public class Json5Writer {
+    private static final Gson gson = new Gson();
+    private static final String INDENT = "  ";
+
+    private final StringBuilder out = new StringBuilder();
+    //每一层是否已经写过元素
+    private final Deque<Boolean> stack = new ArrayDeque<>();
+    //name 后面还没有写值
+    private boolean named;
+    //name 带的注释，等值写完后再输出
+    private String nameComment;
+    //上一个值的注释，等逗号写完后再输出
+    private String pendingComment;
+    //当前行已经以注释结尾，后面的内容需要换行
+    private boolean commented;
+
+    public Json5Writer beginObject() {
+        return open('{');
+    }
+
+    public Json5Writer endObject() {
+        return close('}');
+    }
+
+    public Json5Writer beginArray() {
+        return open('[');
+    }
+
+    public Json5Writer endArray() {
+        return close(']');
+    }
+
+    /**
+     * @param name    字段名
+     * @param comment 字段的注释，可以为空
+     * @return
+     */
+    public Json5Writer name(String name, String comment) {
+        beforeElement();
+        out.append(gson.toJson(name)).append(": ");
+        named = true;
+        nameComment = comment;
+        return this;
+    }
+
+    public Json5Writer value(Object value) {
+        if (!named) {
+            beforeElement();
+        }
+        out.append(gson.toJson(value));
+        pendingComment = nameComment;
+        nameComment = null;
+        named = false;
+        return this;
+    }
+
+    private Json5Writer open(char c) {
+        if (!named) {
+            beforeElement();
+        }
+        out.append(c);
+        writeComment(nameComment);
+        nameComment = null;
+        named = false;
+        stack.push(false);
+        return this;
+    }
+
+    private Json5Writer close(char c) {
+        boolean hasElements = stack.pop();
+        if (hasElements) {
+            writeComment(pendingComment);
+        }
+        if (hasElements || commented) {
+            newline();
+        }
+        out.append(c);
+        return this;
+    }
+
+    private void beforeElement() {
+        if (stack.isEmpty()) {
+            return;
+        }
+        if (stack.peek()) {
+            out.append(',');
+            writeComment(pendingComment);
+        } else {
+            stack.pop();
+            stack.push(true);
+        }
+        newline();
+    }
+
+    private void writeComment(String comment) {
+        pendingComment = null;
+        if (StringUtils.isBlank(comment)) {
+            return;
+        }
+        out.append(" //").append(comment.replaceAll("[\\r\\n]+", " "));
+        commented = true;
+    }
+
+    private void newline() {
+        out.append('\n');
+        for (int i = 0; i < stack.size(); i++) {
+            out.append(INDENT);
+        }
+        commented = false;
+    }
+
+    @Override
+    public String toString() {
+        writeComment(pendingComment);
+        return out.toString();
+    }
+}
@@ -3,18 +3,18 @@ package org.metersphere.utils;
 import com.alibaba.fastjson.JSONObject;
 import com.intellij.openapi.diagnostic.Logger;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.jetbrains.annotations.NotNull;
 import org.metersphere.state.AppSettingState;
@@ -32,7 +32,6 @@ public class MSApiUtil {
         if (StringUtils.isAnyBlank(appSettingState.getMeterSphereAddress(), appSettingState.getAccesskey(), appSettingState.getSecretkey())) {
             return false;
         }
-        CloseableHttpClient httpClient = HttpFutureUtils.getOneHttpClient();
         try {
             Map<String, String> headers = new HashMap<>();
             headers.put("Accept", "application/json;charset=UTF-8");
@@ -42,26 +41,57 @@ public class MSApiUtil {
             for (String s : headers.keySet()) {
                 httpGet.addHeader(s, headers.get(s));
             }
-            HttpResponse response = httpClient.execute(httpGet);
-            if (response.getStatusLine().getStatusCode() == 200) {
-                return true;
+            try (CloseableHttpResponse response = HttpFutureUtils.execute(httpGet)) {
+                if (response.getStatusLine().getStatusCode() == 200) {
+                    return true;
+                }
+                logger.error("test failed! response:【" + JSONObject.toJSONString(response) + "】");
+                return false;
             }
-            logger.error("test failed! response:【" + JSONObject.toJSONString(response) + "】");
-            return false;
         } catch (Exception e) {
             logger.error("测试连接失败！", e);
             return false;
-        } finally {
-            if (httpClient != null) {
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
         }
     }
 
+    /**
+     * 连接测试成功的时间 key: 服务地址|accesskey|secretkey 的 md5
+     */
+    private static final Map<String, Long> testPassedTime = new ConcurrentHashMap<>();
+
+    /**
+     * 有效期内复用上一次成功的连接测试结果，否则异步重新测试，失败的结果不缓存
+     *
+     * @param appSettingState
+     * @return
+     */
+    public static CompletableFuture<Boolean> testCached(AppSettingState appSettingState) {
+        String key = testKey(appSettingState);
+        Long passed = testPassedTime.get(key);
+        if (passed != null && System.currentTimeMillis() - passed < TimeUnit.SECONDS.toMillis(appSettingState.getConnectionCheckTtl())) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return testAsync(appSettingState).thenApply(success -> {
+            if (success) {
+                testPassedTime.put(key, System.currentTimeMillis());
+            } else {
+                testPassedTime.remove(key);
+            }
+            return success;
+        });
+    }
+
+    /**
+     * 凭证失效或请求被拒绝时清除缓存的连接测试结果
+     */
+    public static void invalidateTest() {
+        testPassedTime.clear();
+    }
+
+    private static String testKey(AppSettingState appSettingState) {
+        return CodingUtil.md5(appSettingState.getMeterSphereAddress() + "|" + appSettingState.getAccesskey() + "|" + appSettingState.getSecretkey());
+    }
+
     public static String getSinature(AppSettingState appSettingState) {
         return CodingUtil.aesEncrypt(appSettingState.getAccesskey() + "|" + UUID.randomUUID().toString() + "|" + System.currentTimeMillis(), appSettingState.getSecretkey(), appSettingState.getAccesskey());
     }
@@ -73,7 +103,6 @@ public class MSApiUtil {
      * @return
      */
     public static JSONObject getProjectList(AppSettingState appSettingState, JSONObject param) {
-        CloseableHttpClient httpClient = HttpFutureUtils.getOneHttpClient();
         try {
             HttpPost httPost = new HttpPost(appSettingState.getMeterSphereAddress() + "/project/list/related");
             httPost.addHeader("accessKey", appSettingState.getAccesskey());
@@ -81,21 +110,14 @@ public class MSApiUtil {
             httPost.addHeader("Content-Type", "application/json");
             StringEntity stringEntity = new StringEntity(param.toJSONString());
             httPost.setEntity(stringEntity);
-            CloseableHttpResponse response = httpClient.execute(httPost);
-            if (response.getStatusLine().getStatusCode() == 200) {
-                return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+            try (CloseableHttpResponse response = HttpFutureUtils.execute(httPost)) {
+                if (response.getStatusLine().getStatusCode() == 200) {
+                    return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+                }
             }
         } catch (Exception e) {
             logger.error("getProjectList failed", e);
             return null;
-        } finally {
-            if (httpClient != null) {
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
         }
         return null;
     }
@@ -110,29 +132,21 @@ public class MSApiUtil {
         if (StringUtils.isBlank(projectId)) {
             return null;
         }
-        CloseableHttpClient httpClient = HttpFutureUtils.getOneHttpClient();
         try {
             String url = String.format("%s/project/version/get-project-versions/%s",
                     appSettingState.getMeterSphereAddress(), projectId);
             HttpGet httPost = new HttpGet(url);
             httPost.addHeader("accessKey", appSettingState.getAccesskey());
             httPost.addHeader("signature", getSinature(appSettingState));
-            CloseableHttpResponse response = httpClient.execute(httPost);
-            if (!isSuccessful(response)) {
-                return null;
+            try (CloseableHttpResponse response = HttpFutureUtils.execute(httPost)) {
+                if (!isSuccessful(response)) {
+                    return null;
+                }
+                return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
             }
-            return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
         } catch (Exception e) {
             logger.error("list project versions failed", e);
             return null;
-        } finally {
-            if (httpClient != null) {
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
         }
     }
 
@@ -146,26 +160,18 @@ public class MSApiUtil {
      * @return
      */
     public static JSONObject getUserInfo(AppSettingState appSettingState) {
-        CloseableHttpClient httpClient = HttpFutureUtils.getOneHttpClient();
         try {
             HttpGet httPost = new HttpGet(appSettingState.getMeterSphereAddress() + "/user/key/validate");
             httPost.addHeader("accessKey", appSettingState.getAccesskey());
             httPost.addHeader("signature", getSinature(appSettingState));
-            CloseableHttpResponse response = httpClient.execute(httPost);
-            if (response.getStatusLine().getStatusCode() == 200) {
-                return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+            try (CloseableHttpResponse response = HttpFutureUtils.execute(httPost)) {
+                if (response.getStatusLine().getStatusCode() == 200) {
+                    return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+                }
             }
         } catch (Exception e) {
             logger.error("getUserInfo failed", e);
             return null;
-        } finally {
-            if (httpClient != null) {
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
         }
         return null;
     }
@@ -178,26 +184,18 @@ public class MSApiUtil {
      * @return
      */
     public static JSONObject getWorkSpaceList(AppSettingState appSettingState, String userId) {
-        CloseableHttpClient httpClient = HttpFutureUtils.getOneHttpClient();
         try {
             HttpGet httPost = new HttpGet(appSettingState.getMeterSphereAddress() + "/workspace/list/userworkspace/");
             httPost.addHeader("accessKey", appSettingState.getAccesskey());
             httPost.addHeader("signature", getSinature(appSettingState));
-            CloseableHttpResponse response = httpClient.execute(httPost);
-            if (response.getStatusLine().getStatusCode() == 200) {
-                return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+            try (CloseableHttpResponse response = HttpFutureUtils.execute(httPost)) {
+                if (response.getStatusLine().getStatusCode() == 200) {
+                    return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+                }
             }
         } catch (Exception e) {
             logger.error("getUserInfo failed", e);
             return null;
-        } finally {
-            if (httpClient != null) {
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
         }
         return null;
     }
@@ -209,26 +207,18 @@ public class MSApiUtil {
      * @return
      */
     public static JSONObject getModuleList(AppSettingState appSettingState, String projectId, String protocol) {
-        CloseableHttpClient httpClient = HttpFutureUtils.getOneHttpClient();
         try {
             HttpGet httpGet = new HttpGet(appSettingState.getMeterSphereAddress() + "/api/module/list/" + projectId + "/" + protocol);
             httpGet.addHeader("accessKey", appSettingState.getAccesskey());
             httpGet.addHeader("signature", getSinature(appSettingState));
-            CloseableHttpResponse response = httpClient.execute(httpGet);
-            if (response.getStatusLine().getStatusCode() == 200) {
-                return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+            try (CloseableHttpResponse response = HttpFutureUtils.execute(httpGet)) {
+                if (response.getStatusLine().getStatusCode() == 200) {
+                    return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+                }
             }
         } catch (Exception e) {
             logger.error("getModuleList failed", e);
             return null;
-        } finally {
-            if (httpClient != null) {
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
         }
         return null;
     }
@@ -239,33 +229,25 @@ public class MSApiUtil {
      * @return
      */
     public static boolean getProjectVersionEnable(AppSettingState appSettingState, String projectId) {
-        CloseableHttpClient httpClient = HttpFutureUtils.getOneHttpClient();
         try {
             HttpGet httpGet = new HttpGet(appSettingState.getMeterSphereAddress() + "/project/version/enable/" + projectId);
             httpGet.addHeader("accessKey", appSettingState.getAccesskey());
             httpGet.addHeader("signature", getSinature(appSettingState));
 
-            CloseableHttpResponse response = httpClient.execute(httpGet);
-            if (response.getStatusLine().getStatusCode() == 200) {
-                JSONObject r = JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
-                if (r.containsKey("success")) {
-                    if (r.getBoolean("success") && r.getBoolean("data") != null) {
-                        return r.getBoolean("data");
+            try (CloseableHttpResponse response = HttpFutureUtils.execute(httpGet)) {
+                if (response.getStatusLine().getStatusCode() == 200) {
+                    JSONObject r = JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+                    if (r.containsKey("success")) {
+                        if (r.getBoolean("success") && r.getBoolean("data") != null) {
+                            return r.getBoolean("data");
+                        }
                     }
+                    return false;
                 }
-                return false;
             }
         } catch (Exception e) {
             logger.error("getProjectVersionEnable failed", e);
             return false;
-        } finally {
-            if (httpClient != null) {
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
         }
         return false;
     }
@@ -275,30 +257,53 @@ public class MSApiUtil {
      * @return
      */
     public static JSONObject getLicense(AppSettingState appSettingState) {
-        CloseableHttpClient httpClient = HttpFutureUtils.getOneHttpClient();
         try {
             HttpGet httpGet = new HttpGet(appSettingState.getMeterSphereAddress() + "/license/valid");
             httpGet.addHeader("accessKey", appSettingState.getAccesskey());
             httpGet.addHeader("signature", getSinature(appSettingState));
-            CloseableHttpResponse response = httpClient.execute(httpGet);
-            if (response.getStatusLine().getStatusCode() == 200) {
-                return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+            try (CloseableHttpResponse response = HttpFutureUtils.execute(httpGet)) {
+                if (response.getStatusLine().getStatusCode() == 200) {
+                    return JSONObject.parseObject(EntityUtils.toString(response.getEntity()));
+                }
             }
         } catch (Exception e) {
             logger.error("get license failed", e);
             return null;
-        } finally {
-            if (httpClient != null) {
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
         }
         return null;
     }
 
+    /**
+     * 以下异步方法在 IDE 管理的有界线程池中执行请求，便于组合和并行调用，不要在 EDT 上 join
+     */
+    public static CompletableFuture<JSONObject> getProjectListAsync(AppSettingState appSettingState, JSONObject param) {
+        return CompletableFuture.supplyAsync(() -> getProjectList(appSettingState, param), HttpFutureUtils.getExecutor());
+    }
+
+    public static CompletableFuture<JSONObject> listProjectVersionByAsync(String projectId, AppSettingState appSettingState) {
+        return CompletableFuture.supplyAsync(() -> listProjectVersionBy(projectId, appSettingState), HttpFutureUtils.getExecutor());
+    }
+
+    public static CompletableFuture<JSONObject> getUserInfoAsync(AppSettingState appSettingState) {
+        return CompletableFuture.supplyAsync(() -> getUserInfo(appSettingState), HttpFutureUtils.getExecutor());
+    }
+
+    public static CompletableFuture<JSONObject> getWorkSpaceListAsync(AppSettingState appSettingState, String userId) {
+        return CompletableFuture.supplyAsync(() -> getWorkSpaceList(appSettingState, userId), HttpFutureUtils.getExecutor());
+    }
+
+    public static CompletableFuture<JSONObject> getModuleListAsync(AppSettingState appSettingState, String projectId, String protocol) {
+        return CompletableFuture.supplyAsync(() -> getModuleList(appSettingState, projectId, protocol), HttpFutureUtils.getExecutor());
+    }
+
+    public static CompletableFuture<Boolean> getProjectVersionEnableAsync(AppSettingState appSettingState, String projectId) {
+        return CompletableFuture.supplyAsync(() -> getProjectVersionEnable(appSettingState, projectId), HttpFutureUtils.getExecutor());
+    }
+
+    public static CompletableFuture<Boolean> testAsync(AppSettingState appSettingState) {
+        return CompletableFuture.supplyAsync(() -> test(appSettingState), HttpFutureUtils.getExecutor());
+    }
+
     public static String getModeId(String modeId) {
         if ("COVER".equalsIgnoreCase(modeId)) {
             return "fullCoverage";
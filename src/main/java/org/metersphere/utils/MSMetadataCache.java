@@ -0,0 +1,118 @@
+package org.metersphere.utils;
+
+import com.alibaba.fastjson.JSONObject;
+import org.metersphere.state.AppSettingState;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * MeterSphere 用户、工作空间、项目、模块、版本等元数据的内存缓存 key: 服务地址|accesskey|实体
+ * 过期后先返回旧值，同时在后台刷新
+ */
+public class MSMetadataCache {
+    private static final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    //正在刷新的请求，同一个 key 只发一次
+    private static final Map<String, CompletableFuture<?>> loading = new ConcurrentHashMap<>();
+    //每次清空缓存加一，清空前发出的请求返回后不再写入缓存
+    private static final AtomicLong generation = new AtomicLong();
+
+    private static class Entry {
+        private final Object value;
+        private final long loadTime;
+
+        private Entry(Object value) {
+            this.value = value;
+            this.loadTime = System.currentTimeMillis();
+        }
+    }
+
+    public static CompletableFuture<JSONObject> getUserInfo(AppSettingState appSettingState) {
+        return get(appSettingState, "user", () -> MSApiUtil.getUserInfoAsync(appSettingState), MSMetadataCache::isSuccess);
+    }
+
+    public static CompletableFuture<JSONObject> getWorkSpaceList(AppSettingState appSettingState, String userId) {
+        String entity = "workspace|" + userId;
+        return get(appSettingState, entity, () -> MSApiUtil.getWorkSpaceListAsync(appSettingState, userId), MSMetadataCache::isSuccess);
+    }
+
+    public static CompletableFuture<JSONObject> getProjectList(AppSettingState appSettingState, JSONObject param) {
+        String entity = "project|" + param.getString("userId") + "|" + param.getString("workspaceId");
+        return get(appSettingState, entity, () -> MSApiUtil.getProjectListAsync(appSettingState, param), MSMetadataCache::isSuccess);
+    }
+
+    public static CompletableFuture<JSONObject> getModuleList(AppSettingState appSettingState, String projectId, String protocol) {
+        String entity = "module|" + projectId + "|" + protocol;
+        return get(appSettingState, entity, () -> MSApiUtil.getModuleListAsync(appSettingState, projectId, protocol), MSMetadataCache::isSuccess);
+    }
+
+    public static CompletableFuture<JSONObject> listProjectVersionBy(String projectId, AppSettingState appSettingState) {
+        String entity = "version|" + projectId;
+        return get(appSettingState, entity, () -> MSApiUtil.listProjectVersionByAsync(projectId, appSettingState), MSMetadataCache::isSuccess);
+    }
+
+    public static CompletableFuture<Boolean> getProjectVersionEnable(AppSettingState appSettingState, String projectId) {
+        String entity = "versionEnable|" + projectId;
+        //请求失败时也返回 false，只缓存 true，避免把失败当成结果缓存下来
+        return get(appSettingState, entity, () -> MSApiUtil.getProjectVersionEnableAsync(appSettingState, projectId), Boolean.TRUE::equals);
+    }
+
+    /**
+     * 清空全部缓存，下次访问重新请求服务端，进行中的请求结果不再缓存
+     */
+    public static void invalidate() {
+        generation.incrementAndGet();
+        loading.clear();
+        cache.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> get(AppSettingState appSettingState, String entity, Supplier<CompletableFuture<T>> loader, Predicate<T> cacheable) {
+        String key = appSettingState.getMeterSphereAddress() + "|" + appSettingState.getAccesskey() + "|" + entity;
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            return load(key, loader, cacheable);
+        }
+        long ttl = TimeUnit.SECONDS.toMillis(appSettingState.getMetadataCacheTtl());
+        if (System.currentTimeMillis() - entry.loadTime > ttl) {
+            load(key, loader, cacheable);
+        }
+        return CompletableFuture.completedFuture((T) entry.value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> load(String key, Supplier<CompletableFuture<T>> loader, Predicate<T> cacheable) {
+        long current = generation.get();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<?> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return (CompletableFuture<T>) existing;
+        }
+        loader.get().whenComplete((value, e) -> {
+            if (e == null && cacheable.test(value) && current == generation.get()) {
+                Entry entry = new Entry(value);
+                cache.put(key, entry);
+                //写入时刚好被清空
+                if (current != generation.get()) {
+                    cache.remove(key, entry);
+                }
+            }
+            loading.remove(key, future);
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else {
+                future.complete(value);
+            }
+        });
+        return future;
+    }
+
+    private static boolean isSuccess(JSONObject r) {
+        return r != null && Boolean.TRUE.equals(r.getBoolean("success"));
+    }
+}
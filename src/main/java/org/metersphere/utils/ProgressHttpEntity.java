@@ -0,0 +1,50 @@
+package org.metersphere.utils;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.util.text.StringUtil;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 上传时把已发送的字节数显示到进度条上
+ */
+public class ProgressHttpEntity extends HttpEntityWrapper {
+    private final ProgressIndicator indicator;
+
+    public ProgressHttpEntity(HttpEntity wrappedEntity, ProgressIndicator indicator) {
+        super(wrappedEntity);
+        this.indicator = indicator;
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        if (indicator == null) {
+            super.writeTo(outStream);
+            return;
+        }
+        super.writeTo(new FilterOutputStream(outStream) {
+            private long sent;
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                report(1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                report(len);
+            }
+
+            private void report(int len) {
+                sent += len;
+                indicator.setText2("Sent " + StringUtil.formatFileSize(sent));
+            }
+        });
+    }
+}
@@ -1,14 +1,44 @@
 package org.metersphere.utils;
 
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 
-public class ProgressUtil {
-    private static ProgressIndicator indicator = ProgressManager.getGlobalProgressIndicator();
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+public class ProgressUtil {
     public static void show(String text) {
+        //每次取当前线程的 indicator，避免缓存到上一次导出的 indicator
+        ProgressIndicator indicator = ProgressManager.getGlobalProgressIndicator();
         if (indicator != null) {
             indicator.setText(text);
         }
     }
+
+    /**
+     * 等待异步结果，等待期间响应用户取消
+     *
+     * @param future
+     * @return
+     */
+    public static <T> T await(Future<T> future) {
+        while (true) {
+            ProgressManager.checkCanceled();
+            try {
+                return future.get(100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ignored) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessCanceledException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
 }
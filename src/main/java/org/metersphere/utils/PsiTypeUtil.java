@@ -2,8 +2,7 @@ package org.metersphere.utils;
 
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.*;
-import com.intellij.psi.search.GlobalSearchScope;
-import org.metersphere.constants.PluginConstants;
+import org.metersphere.exporter.ExportSession;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -13,30 +12,12 @@ public class PsiTypeUtil {
     private static final Pattern genericPattern = Pattern.compile(genericPatternString);
 
 
-    /**
-     * 简单判断 后期优化多重嵌套结构
-     *
-     * @param field
-     * @return
-     */
     public static boolean isMap(PsiType field) {
-        for (String s : PluginConstants.javaMapType) {
-            if (field.getCanonicalText().startsWith(s)) {
-                return true;
-            }
-        }
-
-        return false;
+        return TypeClassifier.isMap(field);
     }
 
     public static boolean isCollection(PsiType type) {
-        for (String s : PluginConstants.javaBaseCollectionType) {
-            if (type.getCanonicalText().startsWith(s)) {
-                return true;
-            }
-        }
-
-        return false;
+        return TypeClassifier.isCollection(type);
     }
 
     /**
@@ -65,46 +46,20 @@ public class PsiTypeUtil {
         Matcher m = genericPattern.matcher(qualifiedName);
         if (m.find()) {
             String oneClass = m.group(pos);
-            return JavaPsiFacade.getInstance(project).findClass(oneClass, GlobalSearchScope.allScope(project));
+            return findClass(oneClass, project);
         }
         return null;
     }
 
 
-    public static PsiClass getPsiClass(PsiType type, Project project, String typeName) {
-        if (typeName.equalsIgnoreCase("collection"))
-            return JavaPsiFacade.getInstance(project).findClass(type.getCanonicalText().split("<")[1].split(">")[0], GlobalSearchScope.allScope(project));
-        else if (typeName.equalsIgnoreCase("array"))
-            return JavaPsiFacade.getInstance(project).findClass(type.getCanonicalText().replace("[]", ""), GlobalSearchScope.allScope(project));
-        else
-            return JavaPsiFacade.getInstance(project).findClass(type.getCanonicalText(), GlobalSearchScope.allScope(project));
-    }
-
-    public static PsiClass getPsiClass(PsiField field, String type) {
-        if (type.equalsIgnoreCase("collection"))
-            return JavaPsiFacade.getInstance(field.getProject()).findClass(field.getType().getCanonicalText().split("<")[1].split(">")[0], GlobalSearchScope.allScope(field.getProject()));
-        else if (type.equalsIgnoreCase("array"))
-            return JavaPsiFacade.getInstance(field.getProject()).findClass(field.getType().getCanonicalText().replace("[]", ""), GlobalSearchScope.allScope(field.getProject()));
-        else
-            return JavaPsiFacade.getInstance(field.getProject()).findClass(field.getType().getCanonicalText(), GlobalSearchScope.allScope(field.getProject()));
-    }
-
-    public static PsiClass getPsiClass(PsiTypeElement field, String type) {
-        if (type.equalsIgnoreCase("collection"))
-            return JavaPsiFacade.getInstance(field.getProject()).findClass(field.getType().getCanonicalText().split("<")[1].split(">")[0], GlobalSearchScope.allScope(field.getProject()));
-        else if (type.equalsIgnoreCase("array"))
-            return JavaPsiFacade.getInstance(field.getProject()).findClass(field.getType().getCanonicalText().replace("[]", ""), GlobalSearchScope.allScope(field.getProject()));
-        else
-            return JavaPsiFacade.getInstance(field.getProject()).findClass(field.getType().getCanonicalText(), GlobalSearchScope.allScope(field.getProject()));
-    }
-
-    public static PsiClass getPsiClass(PsiParameter parameter, String type) {
-        if (type.equalsIgnoreCase("collection"))
-            return JavaPsiFacade.getInstance(parameter.getProject()).findClass(parameter.getType().getCanonicalText().split("<")[1].split(">")[0], GlobalSearchScope.allScope(parameter.getProject()));
-        else if (type.equalsIgnoreCase("array"))
-            return JavaPsiFacade.getInstance(parameter.getProject()).findClass(parameter.getType().getCanonicalText().replace("[]", ""), GlobalSearchScope.allScope(parameter.getProject()));
-        else
-            return JavaPsiFacade.getInstance(parameter.getProject()).findClass(parameter.getType().getCanonicalText(), GlobalSearchScope.allScope(parameter.getProject()));
+    /**
+     * 查找结果缓存在当前导出的 session 中
+     *
+     * @param qualifiedName 全限定名
+     * @param project
+     * @return
+     */
+    public static PsiClass findClass(String qualifiedName, Project project) {
+        return ExportSession.current(project).findClass(qualifiedName, project);
     }
 }
-
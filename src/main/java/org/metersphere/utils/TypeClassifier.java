@@ -0,0 +1,85 @@
+package org.metersphere.utils;
+
+import com.intellij.psi.*;
+import com.intellij.psi.util.InheritanceUtil;
+import org.metersphere.exporter.ExportSession;
+
+/**
+ * 类型分类，按继承关系判断集合和 Map，子类也能识别
+ * 每个类只解析一次，结果缓存在类所属项目当前导出的 session 中
+ */
+public class TypeClassifier {
+
+    public enum Kind {
+        //基础类型及包装类
+        BASIC,
+        ENUM,
+        ARRAY,
+        COLLECTION,
+        MAP,
+        OBJECT,
+        //无法解析的类型
+        UNKNOWN
+    }
+
+    public static Kind classify(PsiType psiType) {
+        if (psiType == null) {
+            return Kind.UNKNOWN;
+        }
+        if (psiType instanceof PsiArrayType) {
+            return Kind.ARRAY;
+        }
+        if (psiType instanceof PsiClassType) {
+            PsiClass psiClass = ((PsiClassType) psiType).resolve();
+            if (psiClass != null) {
+                return ExportSession.current(psiClass.getProject()).getTypeKind(psiClass, TypeClassifier::classify);
+            }
+        }
+        //基础类型或者解析不到的类只能按名称判断
+        return FieldUtil.isNormalType(psiType.getPresentableText()) ? Kind.BASIC : Kind.UNKNOWN;
+    }
+
+    private static Kind classify(PsiClass psiClass) {
+        if (FieldUtil.isNormalType(psiClass.getName())) {
+            return Kind.BASIC;
+        }
+        if (psiClass.isEnum()) {
+            return Kind.ENUM;
+        }
+        if (InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_UTIL_COLLECTION)) {
+            return Kind.COLLECTION;
+        }
+        if (InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_UTIL_MAP)) {
+            return Kind.MAP;
+        }
+        return Kind.OBJECT;
+    }
+
+    /**
+     * 基础类型及包装类，不包括枚举
+     */
+    public static boolean isBasic(PsiType psiType) {
+        return classify(psiType) == Kind.BASIC;
+    }
+
+    /**
+     * 基础类型、包装类及枚举
+     */
+    public static boolean isNormal(PsiType psiType) {
+        Kind kind = classify(psiType);
+        return kind == Kind.BASIC || kind == Kind.ENUM;
+    }
+
+    public static boolean isCollection(PsiType psiType) {
+        return classify(psiType) == Kind.COLLECTION;
+    }
+
+    public static boolean isIterable(PsiType psiType) {
+        Kind kind = classify(psiType);
+        return kind == Kind.ARRAY || kind == Kind.COLLECTION;
+    }
+
+    public static boolean isMap(PsiType psiType) {
+        return classify(psiType) == Kind.MAP;
+    }
+}